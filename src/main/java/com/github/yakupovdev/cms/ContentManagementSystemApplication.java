@@ -2,8 +2,10 @@ package com.github.yakupovdev.cms;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ContentManagementSystemApplication {
 
     public static void main(String[] args) {
@@ -23,9 +25,21 @@ public class ContentManagementSystemApplication {
                 ├─ POST /api/auth/register    - Register new user
                 ├─ POST /api/auth/login       - Login user
                 ├─ GET  /api/users/me         - Get user info
+                ├─ GET  /api/users/me/stats   - Get post statistics
+                ├─ GET  /api/users/me/hashtags - Get top hashtags
+                ├─ POST /api/users/me/revoke-tokens - Sign out everywhere
                 ├─ POST /api/posts/generate   - Generate post with GPT-4o
+                ├─ POST /api/posts/generate?async=true - Queue generation job
+                ├─ POST /api/posts/generate/stream - Stream generation (SSE)
+                ├─ POST /api/posts/generate/batch  - Batch generation (SSE)
+                ├─ GET  /api/posts/jobs/{id}  - Get generation job status
                 ├─ POST /api/posts/save       - Save generated post
-                ├─ GET  /api/posts            - Get all user posts
+                ├─ POST /api/posts/import     - Import posts (NDJSON/CSV)
+                ├─ GET  /api/posts/export     - Export posts (NDJSON, gzip or ZIP)
+                ├─ GET  /api/posts            - List user posts (paged summaries)
+                ├─ GET  /api/posts/search?q=  - Search posts (ranked)
+                ├─ GET  /api/posts/hashtags/{tag} - List posts by hashtag
+                ├─ GET  /api/hashtags/trending - Trending hashtags
                 ├─ GET  /api/posts/{id}       - Get specific post
                 └─ DELETE /api/posts/{id}     - Delete post
                 
@@ -0,0 +1,52 @@
+package com.github.yakupovdev.cms.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class IdSequenceAligner {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+    }
+
+
+    @PostConstruct
+    public void alignSequences() {
+        align("posts", "posts_seq");
+        align("users", "users_seq");
+    }
+
+
+    private void align(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+
+        Long next = jdbcTemplate.queryForObject(
+                dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        if (next != null && next - ALLOCATION_SIZE + 1 > maxId) {
+            return;
+        }
+
+        long restartWith = maxId + ALLOCATION_SIZE;
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + restartWith);
+        log.info("Sequence {} moved past existing {} ids (max id {}, restarted at {})",
+                sequence, table, maxId, restartWith);
+    }
+}
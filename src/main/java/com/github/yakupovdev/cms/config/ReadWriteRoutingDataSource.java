@@ -0,0 +1,82 @@
+package com.github.yakupovdev.cms.config;
+
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReadYourWritesGuard readYourWritesGuard;
+    private final Counter primaryRoutes;
+    private final Counter replicaRoutes;
+    private final Counter pinnedRoutes;
+
+    public ReadWriteRoutingDataSource(
+            DataSource primary,
+            DataSource replica,
+            ReadYourWritesGuard readYourWritesGuard,
+            MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.readYourWritesGuard = readYourWritesGuard;
+        this.primaryRoutes = routes(meterRegistry, Target.PRIMARY, "write");
+        this.replicaRoutes = routes(meterRegistry, Target.REPLICA, "read");
+        this.pinnedRoutes = routes(meterRegistry, Target.PRIMARY, "pinned-read");
+    }
+
+
+    @Override
+    public void afterPropertiesSet() {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        super.afterPropertiesSet();
+    }
+
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (readYourWritesGuard.isPinned(currentUserId())) {
+                pinnedRoutes.increment();
+                return Target.PRIMARY;
+            }
+            replicaRoutes.increment();
+            return Target.REPLICA;
+        }
+
+        primaryRoutes.increment();
+        return Target.PRIMARY;
+    }
+
+
+    private Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.id();
+        }
+        return null;
+    }
+
+
+    private static Counter routes(MeterRegistry meterRegistry, Target target, String reason) {
+        return Counter.builder("datasource.routing")
+                .description("Connections routed per target datasource")
+                .tag("target", target.name().toLowerCase())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.yakupovdev.cms.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+@Component
+public class ReadYourWritesGuard {
+
+    private final Cache<Long, Boolean> pinnedUsers;
+
+    public ReadYourWritesGuard(
+            @Value("${datasource.read-your-writes.pin-duration:5s}") Duration pinDuration,
+            @Value("${datasource.read-your-writes.max-users:100000}") long maxUsers) {
+        this.pinnedUsers = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(pinDuration)
+                .build();
+    }
+
+
+    public void pin(Long userId) {
+        if (userId != null) {
+            pinnedUsers.put(userId, Boolean.TRUE);
+        }
+    }
+
+
+    public boolean isPinned(Long userId) {
+        return userId != null && pinnedUsers.getIfPresent(userId) != null;
+    }
+
+
+    public void pinAfterCommit(Long userId) {
+        if (userId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            pin(userId);
+            return;
+        }
+
+        String marker = ReadYourWritesGuard.class.getName() + "." + userId;
+        if (TransactionSynchronizationManager.hasResource(marker)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(marker, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pin(userId);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(marker);
+            }
+        });
+    }
+}
@@ -1,8 +1,23 @@
 package com.github.yakupovdev.cms.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
@@ -10,11 +25,91 @@ import java.time.Duration;
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${openai.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${openai.http.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${openai.http.connect-timeout:10s}")
+    private Duration connectTimeout;
+
+    @Value("${openai.http.connection-request-timeout:5s}")
+    private Duration connectionRequestTimeout;
+
+    @Value("${openai.http.read-timeout:60s}")
+    private Duration readTimeout;
+
+    @Value("${openai.http.keep-alive:60s}")
+    private Duration keepAlive;
+
+    @Value("${openai.http.idle-eviction:30s}")
+    private Duration idleEviction;
+
+    @Value("${openai.http.connection-ttl:5m}")
+    private Duration connectionTtl;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager openAiConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoKeepAlive(true)
+                        .setTcpNoDelay(true)
+                        .setSoTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setTimeToLive(TimeValue.of(connectionTtl))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient openAiHttpClient(PoolingHttpClientConnectionManager openAiConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(openAiConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .setConnectionKeepAlive(TimeValue.of(keepAlive))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient openAiHttpClient) {
         return builder
-                .setConnectTimeout(Duration.ofSeconds(10))
-                .setReadTimeout(Duration.ofSeconds(60))
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(openAiHttpClient))
                 .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public MeterBinder openAiConnectionPoolMetrics(PoolingHttpClientConnectionManager openAiConnectionManager) {
+        return registry -> {
+            Gauge.builder("openai.http.pool.leased",
+                            openAiConnectionManager, m -> m.getTotalStats().getLeased())
+                    .description("Connections currently leased to OpenAI requests")
+                    .register(registry);
+            Gauge.builder("openai.http.pool.pending",
+                            openAiConnectionManager, m -> m.getTotalStats().getPending())
+                    .description("Requests waiting for a pooled connection")
+                    .register(registry);
+            Gauge.builder("openai.http.pool.available",
+                            openAiConnectionManager, m -> m.getTotalStats().getAvailable())
+                    .description("Idle keep-alive connections ready for reuse")
+                    .register(registry);
+            Gauge.builder("openai.http.pool.max",
+                            openAiConnectionManager, m -> m.getTotalStats().getMax())
+                    .description("Maximum pooled connections")
+                    .register(registry);
+        };
+    }
+}
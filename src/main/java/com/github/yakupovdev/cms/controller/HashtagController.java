@@ -0,0 +1,29 @@
+package com.github.yakupovdev.cms.controller;
+
+import com.github.yakupovdev.cms.dto.TrendingHashtagDTO;
+import com.github.yakupovdev.cms.service.HashtagService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/hashtags")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class HashtagController {
+
+    private final HashtagService hashtagService;
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingHashtagDTO>> getTrending(@RequestParam(required = false) Integer limit) {
+        log.info("Fetching trending hashtags");
+
+        List<TrendingHashtagDTO> trending = hashtagService.getTrending(limit);
+
+        return ResponseEntity.ok(trending);
+    }
+}
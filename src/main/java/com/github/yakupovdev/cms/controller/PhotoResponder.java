@@ -0,0 +1,251 @@
+package com.github.yakupovdev.cms.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Enumeration;
+import java.util.List;
+
+@Component
+@Slf4j
+public class PhotoResponder {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final int SNIFF_LENGTH = 12;
+
+    private final long sendfileThreshold;
+    private final CacheControl immutableCacheControl;
+    private final CacheControl revalidateCacheControl;
+    private final Cache<Path, MediaType> contentTypes;
+
+    public PhotoResponder(
+            @Value("${photos.http.sendfile-threshold:48KB}") DataSize sendfileThreshold,
+            @Value("${photos.http.immutable-max-age:365d}") Duration immutableMaxAge,
+            @Value("${photos.http.content-type-cache-size:10000}") long contentTypeCacheSize) {
+        this.sendfileThreshold = sendfileThreshold.toBytes();
+        this.immutableCacheControl = CacheControl.maxAge(immutableMaxAge).cachePrivate().immutable();
+        this.revalidateCacheControl = CacheControl.noCache().cachePrivate();
+        this.contentTypes = Caffeine.newBuilder()
+                .maximumSize(contentTypeCacheSize)
+                .build();
+    }
+
+
+    public ResponseEntity<?> respond(Path file, boolean immutable, ServletWebRequest webRequest) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = etag(file, immutable, length, lastModified);
+        CacheControl cacheControl = immutable ? immutableCacheControl : revalidateCacheControl;
+
+        if (!preconditionsHold(webRequest.getRequest(), etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            HttpServletResponse response = webRequest.getResponse();
+            return ResponseEntity.status(response != null ? response.getStatus() : HttpStatus.NOT_MODIFIED.value())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = length - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        String range = webRequest.getHeader(HttpHeaders.RANGE);
+        if (range != null && length > 0 && rangeApplies(webRequest.getHeader(HttpHeaders.IF_RANGE), etag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range not satisfiable: " + range);
+                    }
+                    status = HttpStatus.PARTIAL_CONTENT;
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+        }
+
+        long count = end - start + 1;
+        headers.setContentType(contentTypes.get(file, this::sniff));
+        headers.setContentLength(Math.max(0, count));
+        headers.setContentDisposition(ContentDisposition.inline()
+                .filename(file.getFileName().toString())
+                .build());
+
+        HttpServletRequest request = webRequest.getRequest();
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count <= 0) {
+            return new ResponseEntity<>(headers, status);
+        }
+
+        if (count < sendfileThreshold) {
+            return new ResponseEntity<>(read(file, start, (int) count), headers, status);
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return new ResponseEntity<>(headers, status);
+        }
+
+        long position = start;
+        StreamingResponseBody body = out -> transfer(file, position, count, out);
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+
+    private String etag(Path file, boolean immutable, long length, long lastModified) {
+        if (immutable) {
+            String filename = file.getFileName().toString();
+            int dot = filename.lastIndexOf('.');
+            return "\"" + (dot > 0 ? filename.substring(0, dot) : filename) + "-" + Long.toHexString(length) + "\"";
+        }
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+
+    private boolean preconditionsHold(HttpServletRequest request, String etag, long lastModified) {
+        Enumeration<String> ifMatch = request.getHeaders(HttpHeaders.IF_MATCH);
+        if (ifMatch != null && ifMatch.hasMoreElements()) {
+            while (ifMatch.hasMoreElements()) {
+                for (String candidate : ifMatch.nextElement().split(",")) {
+                    String tag = candidate.trim();
+                    if (tag.equals("*") || tag.equals(etag)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        try {
+            long ifUnmodifiedSince = request.getDateHeader(HttpHeaders.IF_UNMODIFIED_SINCE);
+            return ifUnmodifiedSince < 0 || lastModified / 1000 <= ifUnmodifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+
+    private boolean rangeApplies(String ifRange, String etag, long lastModified) {
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+
+        try {
+            long validator = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant()
+                    .toEpochMilli();
+            return validator / 1000 == lastModified / 1000;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+
+    private byte[] read(Path file, long start, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        try (FileChannel channel = FileChannel.open(file)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+
+    private void transfer(Path file, long start, long count, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file)) {
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+
+    private MediaType sniff(Path file) {
+        byte[] head = new byte[SNIFF_LENGTH];
+        int read = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(head, 0, SNIFF_LENGTH);
+        } catch (IOException e) {
+            log.debug("Failed to sniff content type of {}: {}", file, e.getMessage());
+        }
+
+        if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return MediaType.IMAGE_JPEG;
+        }
+        if (read >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return MediaType.IMAGE_PNG;
+        }
+        if (read >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8') {
+            return MediaType.IMAGE_GIF;
+        }
+        if (read >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+
+        return MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+}
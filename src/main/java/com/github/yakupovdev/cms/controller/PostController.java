@@ -1,21 +1,31 @@
 package com.github.yakupovdev.cms.controller;
 
 import com.github.yakupovdev.cms.dto.*;
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
+import com.github.yakupovdev.cms.service.BatchGenerationService;
+import com.github.yakupovdev.cms.service.GenerationJobService;
+import com.github.yakupovdev.cms.service.GenerationStreamService;
+import com.github.yakupovdev.cms.service.PhotoStore;
+import com.github.yakupovdev.cms.service.PhotoVariantService;
+import com.github.yakupovdev.cms.service.PostExportService;
+import com.github.yakupovdev.cms.service.PostImportService;
 import com.github.yakupovdev.cms.service.PostService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -25,34 +35,98 @@ import java.util.List;
 public class PostController {
 
     private final PostService postService;
+    private final GenerationJobService generationJobService;
+    private final GenerationStreamService generationStreamService;
+    private final BatchGenerationService batchGenerationService;
+    private final PostImportService postImportService;
+    private final PostExportService postExportService;
+    private final PhotoVariantService photoVariantService;
+    private final PhotoStore photoStore;
+    private final PhotoResponder photoResponder;
 
     @PostMapping(value = "/generate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<GeneratedPostDTO> generatePost(
             @Valid @ModelAttribute PostRequestDTO request,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
         log.info("Generate post request (without saving) from user: {}",
-                authentication.getName());
+                user.username());
 
         GeneratedPostDTO response = postService.generatePost(
                 request,
-                authentication.getName()
+                user
         );
 
         return ResponseEntity.ok(response);
     }
 
 
+    @PostMapping(value = "/generate", params = "async=true",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<GenerationJobDTO> generatePostAsync(
+            @Valid @ModelAttribute PostRequestDTO request,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Async generate post request from user: {}", user.username());
+
+        GenerationJobDTO job = generationJobService.submit(request, user.username());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/posts/jobs/" + job.getJobId())
+                .body(job);
+    }
+
+
+    @PostMapping(value = "/generate/stream",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter generatePostStream(
+            @Valid @ModelAttribute PostRequestDTO request,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Streaming generate post request from user: {}", user.username());
+
+        return generationStreamService.streamPost(request, user.username());
+    }
+
+
+    @PostMapping(value = "/generate/batch",
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter generatePostBatch(
+            @Valid @ModelAttribute BatchPostRequestDTO request,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Batch generate request with {} items from user: {}",
+                request.getItems().size(), user.username());
+
+        return batchGenerationService.generateBatch(request, user.username());
+    }
+
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<GenerationJobDTO> getGenerationJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.debug("Get generation job {} request from user: {}", jobId, user.username());
+
+        GenerationJobDTO job = generationJobService.getJob(jobId, user.username());
+
+        return ResponseEntity.ok(job);
+    }
+
+
     @PostMapping("/save")
     public ResponseEntity<PostResponseDTO> savePost(
             @Valid @RequestBody SavePostRequestDTO request,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
-        log.info("Save post request from user: {}", authentication.getName());
+        log.info("Save post request from user: {}", user.username());
 
         PostResponseDTO response = postService.saveGeneratedPost(
                 request,
-                authentication.getName()
+                user
         );
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
@@ -62,25 +136,104 @@ public class PostController {
     @PostMapping(value = "/generate-and-save", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<PostResponseDTO> generateAndSavePost(
             @Valid @ModelAttribute PostRequestDTO request,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
         log.info("Generate and save post request from user: {}",
-                authentication.getName());
+                user.username());
 
         PostResponseDTO response = postService.generateAndSavePost(
                 request,
-                authentication.getName()
+                user
         );
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PostImportResultDTO> importPosts(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Import posts request from user: {}", user.username());
+
+        PostImportResultDTO result = postImportService.importPosts(file, user);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPosts(
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(defaultValue = "false") boolean photos,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Export posts request from user: {} (gzip={}, photos={})", user.username(), gzip, photos);
+
+        String filename = "posts-" + user.username();
+        MediaType contentType;
+        StreamingResponseBody body;
+
+        if (photos) {
+            filename += ".zip";
+            contentType = MediaType.parseMediaType("application/zip");
+            body = out -> postExportService.exportZip(user, out);
+        } else if (gzip) {
+            filename += ".ndjson.gz";
+            contentType = MediaType.parseMediaType("application/gzip");
+            body = out -> postExportService.exportNdjson(user, true, out);
+        } else {
+            filename += ".ndjson";
+            contentType = MediaType.parseMediaType("application/x-ndjson");
+            body = out -> postExportService.exportNdjson(user, false, out);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+
     @GetMapping
-    public ResponseEntity<List<PostResponseDTO>> getUserPosts(Authentication authentication) {
-        log.info("Get posts request from user: {}", authentication.getName());
+    public ResponseEntity<PostPageDTO<PostSummaryDTO>> getUserPosts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Get posts request from user: {}", user.username());
+
+        PostPageDTO<PostSummaryDTO> posts = postService.getUserPosts(user, cursor, limit);
+
+        return ResponseEntity.ok(posts);
+    }
+
+
+    @GetMapping("/search")
+    public ResponseEntity<PostSearchResultDTO> searchPosts(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Search posts request from user: {}", user.username());
+
+        PostSearchResultDTO result = postService.searchPosts(user, query, limit);
+
+        return ResponseEntity.ok(result);
+    }
 
-        List<PostResponseDTO> posts = postService.getUserPosts(authentication.getName());
+
+    @GetMapping("/hashtags/{tag}")
+    public ResponseEntity<PostPageDTO<PostSummaryDTO>> getPostsByHashtag(
+            @PathVariable String tag,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+
+        log.info("Get posts by hashtag request from user: {}", user.username());
+
+        PostPageDTO<PostSummaryDTO> posts = postService.getPostsByHashtag(user, tag, cursor, limit);
 
         return ResponseEntity.ok(posts);
     }
@@ -89,11 +242,11 @@ public class PostController {
     @GetMapping("/{id}")
     public ResponseEntity<PostResponseDTO> getPostById(
             @PathVariable Long id,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
-        log.info("Get post {} request from user: {}", id, authentication.getName());
+        log.info("Get post {} request from user: {}", id, user.username());
 
-        PostResponseDTO post = postService.getPostById(id, authentication.getName());
+        PostResponseDTO post = postService.getPostById(id, user);
 
         return ResponseEntity.ok(post);
     }
@@ -102,57 +255,47 @@ public class PostController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePost(
             @PathVariable Long id,
-            Authentication authentication) {
+            @AuthenticationPrincipal AuthenticatedUser user) {
 
-        log.info("Delete post {} request from user: {}", id, authentication.getName());
+        log.info("Delete post {} request from user: {}", id, user.username());
 
-        postService.deletePost(id, authentication.getName());
+        postService.deletePost(id, user);
 
         return ResponseEntity.noContent().build();
     }
 
 
     @GetMapping("/{id}/photo")
-    public ResponseEntity<Resource> getPostPhoto(
+    public ResponseEntity<?> getPostPhoto(
             @PathVariable Long id,
-            Authentication authentication) {
+            @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) String variant,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            ServletWebRequest webRequest) {
 
-        log.info("Get photo for post {} by user: {}", id, authentication.getName());
+        log.info("Get photo for post {} by user: {}", id, user.username());
+
+        int width = photoVariantService.resolveWidth(w, variant);
 
         try {
-            PostResponseDTO post = postService.getPostById(id, authentication.getName());
+            PostResponseDTO post = postService.getPostById(id, user);
 
             if (post.getPhotoPath() == null || post.getPhotoPath().isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
 
-            Path photoPath = Paths.get(post.getPhotoPath());
-            Resource resource = new UrlResource(photoPath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                String contentType = "image/jpeg";
-                String filename = photoPath.getFileName().toString();
-                if (filename.endsWith(".png")) {
-                    contentType = "image/png";
-                } else if (filename.endsWith(".gif")) {
-                    contentType = "image/gif";
-                } else if (filename.endsWith(".webp")) {
-                    contentType = "image/webp";
-                }
-
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION,
-                                "inline; filename=\"" + filename + "\"")
-                        .body(resource);
-            } else {
-                log.warn("Photo file not found or not readable: {}", post.getPhotoPath());
+            Path photoPath = photoVariantService.resolve(Paths.get(post.getPhotoPath()), width);
+
+            if (!Files.isRegularFile(photoPath) || !Files.isReadable(photoPath)) {
+                log.warn("Photo file not found or not readable: {}", photoPath);
                 return ResponseEntity.notFound().build();
             }
 
+            return photoResponder.respond(photoPath, photoStore.isContentAddressed(photoPath), webRequest);
+
         } catch (Exception e) {
             log.error("Error retrieving photo: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+}
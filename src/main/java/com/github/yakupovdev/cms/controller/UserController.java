@@ -1,13 +1,18 @@
 package com.github.yakupovdev.cms.controller;
 
+import com.github.yakupovdev.cms.dto.HashtagCountDTO;
 import com.github.yakupovdev.cms.dto.UserInfoResponseDTO;
+import com.github.yakupovdev.cms.dto.UserStatsDTO;
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
 import com.github.yakupovdev.cms.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
@@ -18,12 +23,41 @@ public class UserController {
     private final UserService userService;
 
     @GetMapping("/me")
-    public ResponseEntity<UserInfoResponseDTO> getCurrentUser(Authentication authentication) {
-        log.info("Fetching user info for: {}", authentication.getName());
+    public ResponseEntity<UserInfoResponseDTO> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser user) {
+        log.info("Fetching user info for: {}", user.username());
 
-        UserInfoResponseDTO userInfo = userService.getUserInfo(authentication.getName());
+        UserInfoResponseDTO userInfo = userService.getUserInfo(user);
 
         return ResponseEntity.ok(userInfo);
     }
 
-}
\ No newline at end of file
+    @GetMapping("/me/stats")
+    public ResponseEntity<UserStatsDTO> getCurrentUserStats(@AuthenticationPrincipal AuthenticatedUser user) {
+        log.info("Fetching post stats for: {}", user.username());
+
+        UserStatsDTO stats = userService.getUserStats(user);
+
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/me/hashtags")
+    public ResponseEntity<List<HashtagCountDTO>> getCurrentUserHashtags(
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        log.info("Fetching top hashtags for: {}", user.username());
+
+        List<HashtagCountDTO> hashtags = userService.getTopHashtags(user, limit);
+
+        return ResponseEntity.ok(hashtags);
+    }
+
+    @PostMapping("/me/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@AuthenticationPrincipal AuthenticatedUser user) {
+        log.info("Revoke tokens request from user: {}", user.username());
+
+        userService.revokeTokens(user);
+
+        return ResponseEntity.noContent().build();
+    }
+
+}
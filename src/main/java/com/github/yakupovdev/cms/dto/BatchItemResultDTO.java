@@ -0,0 +1,22 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchItemResultDTO {
+
+    private Integer index;
+
+    private ItemStatus status;
+
+    private GeneratedPostDTO result;
+
+    private String error;
+
+    public enum ItemStatus {
+        SUCCEEDED,
+        FAILED
+    }
+}
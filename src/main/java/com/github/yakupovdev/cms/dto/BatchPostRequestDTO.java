@@ -0,0 +1,16 @@
+package com.github.yakupovdev.cms.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchPostRequestDTO {
+
+    @Valid
+    @NotEmpty(message = "At least one item is required")
+    private List<PostRequestDTO> items = new ArrayList<>();
+}
@@ -0,0 +1,17 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchSummaryDTO {
+
+    private Integer total;
+
+    private Integer succeeded;
+
+    private Integer failed;
+
+    private Long durationMs;
+}
@@ -10,6 +10,8 @@ public class GeneratedPostDTO {
 
     private String generatedDescription;
 
+    private boolean fallback;
+
     private String originalDescription;
 
     private String hashtags;
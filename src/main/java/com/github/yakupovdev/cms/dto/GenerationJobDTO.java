@@ -0,0 +1,33 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class GenerationJobDTO {
+
+    private String jobId;
+
+    private JobStatus status;
+
+    private GeneratedPostDTO result;
+
+    private String error;
+
+    private LocalDateTime submittedAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        EXPIRED
+    }
+}
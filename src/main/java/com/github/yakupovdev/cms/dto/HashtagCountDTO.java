@@ -0,0 +1,13 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class HashtagCountDTO {
+
+    private String tag;
+
+    private Long postCount;
+}
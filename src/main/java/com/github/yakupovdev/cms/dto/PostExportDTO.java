@@ -0,0 +1,27 @@
+package com.github.yakupovdev.cms.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PostExportDTO {
+
+    private Long id;
+
+    private String originalDescription;
+
+    private String generatedDescription;
+
+    private String hashtags;
+
+    private String size;
+
+    private String photo;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,21 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PostImportResultDTO {
+
+    private Integer imported;
+
+    private Integer rejected;
+
+    private List<String> errors;
+
+    private Long durationMs;
+
+    private Long rowsPerSecond;
+}
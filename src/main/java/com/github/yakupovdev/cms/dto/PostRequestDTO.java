@@ -19,9 +19,19 @@ public class PostRequestDTO {
     @NotNull(message = "Size is required")
     private DescriptionSize size;
 
+    private boolean bypassCache;
+
+    private ImageDetail imageDetail;
+
     public enum DescriptionSize {
         SHORT,
         MEDIUM,
         LONG
     }
+
+    public enum ImageDetail {
+        LOW,
+        HIGH,
+        AUTO
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PostSearchHitDTO {
+
+    private Double score;
+
+    private PostSummaryDTO post;
+}
@@ -0,0 +1,17 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PostSearchResultDTO {
+
+    private String query;
+
+    private Integer total;
+
+    private List<PostSearchHitDTO> items;
+}
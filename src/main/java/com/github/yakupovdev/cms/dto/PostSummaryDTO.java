@@ -0,0 +1,24 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class PostSummaryDTO {
+
+    private Long id;
+
+    private String preview;
+
+    private boolean truncated;
+
+    private String hashtags;
+
+    private String photoPath;
+
+    private String size;
+
+    private LocalDateTime createdAt;
+}
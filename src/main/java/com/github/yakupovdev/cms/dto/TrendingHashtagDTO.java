@@ -0,0 +1,15 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TrendingHashtagDTO {
+
+    private String tag;
+
+    private Double score;
+
+    private Double maxError;
+}
@@ -0,0 +1,25 @@
+package com.github.yakupovdev.cms.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class UserStatsDTO {
+
+    private long totalPosts;
+
+    private long shortPosts;
+
+    private long mediumPosts;
+
+    private long longPosts;
+
+    private long photoPosts;
+
+    private long textOnlyPosts;
+
+    private LocalDateTime lastPostAt;
+}
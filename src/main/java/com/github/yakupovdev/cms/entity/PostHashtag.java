@@ -0,0 +1,48 @@
+package com.github.yakupovdev.cms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "post_hashtags", indexes = {
+        @Index(name = "idx_post_hashtags_user_tag_created", columnList = "user_id, hashtag_id, created_at DESC, post_id DESC")
+})
+@IdClass(PostHashtag.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostHashtag {
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Id
+    @Column(name = "hashtag_id")
+    private Long hashtagId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long postId;
+
+        private Long hashtagId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.yakupovdev.cms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "user_hashtag_counts", indexes = {
+        @Index(name = "idx_user_hashtag_counts_top", columnList = "user_id, post_count DESC")
+})
+@IdClass(UserHashtagCount.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserHashtagCount {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "hashtag_id")
+    private Long hashtagId;
+
+    @Column(name = "post_count", nullable = false)
+    private long postCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+
+        private Long hashtagId;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.yakupovdev.cms.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "user_post_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserPostStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "total_posts", nullable = false)
+    private long totalPosts;
+
+    @Column(name = "short_posts", nullable = false)
+    private long shortPosts;
+
+    @Column(name = "medium_posts", nullable = false)
+    private long mediumPosts;
+
+    @Column(name = "long_posts", nullable = false)
+    private long longPosts;
+
+    @Column(name = "photo_posts", nullable = false)
+    private long photoPosts;
+
+    @Column(name = "text_only_posts", nullable = false)
+    private long textOnlyPosts;
+
+    @Column(name = "last_post_at")
+    private LocalDateTime lastPostAt;
+}
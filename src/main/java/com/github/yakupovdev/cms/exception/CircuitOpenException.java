@@ -0,0 +1,10 @@
+package com.github.yakupovdev.cms.exception;
+
+public class CircuitOpenException extends GenerationRejectedException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String message, long retryAfterSeconds) {
+        super(message, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,8 @@
+package com.github.yakupovdev.cms.repository;
+
+public interface HashtagCountView {
+
+    String getTag();
+
+    Long getPostCount();
+}
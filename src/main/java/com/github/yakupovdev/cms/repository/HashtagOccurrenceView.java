@@ -0,0 +1,10 @@
+package com.github.yakupovdev.cms.repository;
+
+import java.time.LocalDateTime;
+
+public interface HashtagOccurrenceView {
+
+    String getTag();
+
+    LocalDateTime getCreatedAt();
+}
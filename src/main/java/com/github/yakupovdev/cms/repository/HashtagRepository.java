@@ -0,0 +1,93 @@
+package com.github.yakupovdev.cms.repository;
+
+import com.github.yakupovdev.cms.entity.Hashtag;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface HashtagRepository extends JpaRepository<Hashtag, Long> {
+
+    String TAGGED_POSTS = "select distinct tp.post_id, tp.user_id, tp.created_at, tp.tag from (" +
+            "select p.id as post_id, p.user_id, p.created_at, lower(ltrim(t.tag, '#')) as tag " +
+            "from posts p cross join lateral unnest(string_to_array(p.hashtags, ' ')) as t(tag) " +
+            "where p.id between :fromId and :toId and p.hashtags <> ''" +
+            ") tp where tp.tag <> '' and length(tp.tag) <= 100";
+
+    Optional<Hashtag> findByTag(String tag);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "hashtags"))
+    @Query(value = "insert into hashtags (tag) " +
+            "select distinct tagged.tag from (" + TAGGED_POSTS + ") tagged " +
+            "order by tagged.tag " +
+            "on conflict (tag) do nothing",
+            nativeQuery = true)
+    int insertMissingTags(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_hashtags"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_hashtag_counts")
+    })
+    @Query(value = "with mapped as (" +
+            "insert into post_hashtags (post_id, hashtag_id, user_id, created_at) " +
+            "select tagged.post_id, h.id, tagged.user_id, tagged.created_at " +
+            "from (" + TAGGED_POSTS + ") tagged join hashtags h on h.tag = tagged.tag " +
+            "on conflict do nothing " +
+            "returning user_id, hashtag_id) " +
+            "insert into user_hashtag_counts (user_id, hashtag_id, post_count) " +
+            "select m.user_id, m.hashtag_id, count(*) from mapped m " +
+            "group by m.user_id, m.hashtag_id order by m.user_id, m.hashtag_id " +
+            "on conflict (user_id, hashtag_id) do update set " +
+            "post_count = user_hashtag_counts.post_count + excluded.post_count",
+            nativeQuery = true)
+    int mapPosts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_hashtags"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_hashtag_counts")
+    })
+    @Query(value = "with removed as (" +
+            "delete from post_hashtags where post_id = :postId returning user_id, hashtag_id) " +
+            "update user_hashtag_counts c set post_count = c.post_count - 1 " +
+            "from removed r where c.user_id = r.user_id and c.hashtag_id = r.hashtag_id",
+            nativeQuery = true)
+    int unmapPost(@Param("postId") Long postId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_hashtag_counts"))
+    @Query(value = "delete from user_hashtag_counts where user_id = :userId and post_count <= 0",
+            nativeQuery = true)
+    int deleteEmptyCounts(@Param("userId") Long userId);
+
+    @Query(value = "select p.id from posts p " +
+            "where p.id > :afterId and p.hashtags <> '' " +
+            "and not exists (select 1 from post_hashtags ph where ph.post_id = p.id) " +
+            "order by p.id limit :limit",
+            nativeQuery = true)
+    List<Long> findUnmappedPostIds(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    @Query("select h.tag as tag, c.postCount as postCount " +
+            "from UserHashtagCount c join Hashtag h on h.id = c.hashtagId " +
+            "where c.userId = :userId " +
+            "order by c.postCount desc, h.tag")
+    List<HashtagCountView> findTopForUser(@Param("userId") Long userId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PostRepository.STREAM_FETCH_SIZE))
+    @Query("select h.tag as tag, ph.createdAt as createdAt " +
+            "from PostHashtag ph join Hashtag h on h.id = ph.hashtagId " +
+            "where ph.createdAt > :since")
+    Stream<HashtagOccurrenceView> streamOccurrencesSince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,44 @@
+package com.github.yakupovdev.cms.repository;
+
+import com.github.yakupovdev.cms.entity.PhotoBlob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlob, String> {
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "photo_blobs"))
+    @Query(value = "insert into photo_blobs (sha256, path, size_bytes, ref_count, created_at) " +
+            "values (:sha256, :path, :sizeBytes, 1, now()) " +
+            "on conflict (sha256) do update set ref_count = photo_blobs.ref_count + 1",
+            nativeQuery = true)
+    int acquire(@Param("sha256") String sha256, @Param("path") String path, @Param("sizeBytes") long sizeBytes);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "photo_blobs"))
+    @Query(value = "update photo_blobs set ref_count = ref_count - 1 where sha256 = :sha256",
+            nativeQuery = true)
+    int release(@Param("sha256") String sha256);
+
+    @Query("select b.path from PhotoBlob b where b.sha256 = :sha256")
+    String findPathBySha256(@Param("sha256") String sha256);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from PhotoBlob b where b.sha256 = :sha256 and b.refCount <= 0")
+    Optional<PhotoBlob> findUnreferencedForUpdate(@Param("sha256") String sha256);
+
+    @Query("select b.sha256 from PhotoBlob b where b.refCount <= 0")
+    List<String> findUnreferenced(Limit limit);
+}
@@ -0,0 +1,12 @@
+package com.github.yakupovdev.cms.repository;
+
+import java.time.LocalDateTime;
+
+public interface PostPhotoView {
+
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+
+    String getPhotoPath();
+}
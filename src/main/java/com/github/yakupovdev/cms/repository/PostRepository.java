@@ -1,16 +1,118 @@
 package com.github.yakupovdev.cms.repository;
 
 import com.github.yakupovdev.cms.entity.Post;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
 
-    List<Post> findByUserIdOrderByCreatedAtDesc(Long userId);
+    String SUMMARY_SELECT = "select p.id as id, p.createdAt as createdAt, p.size as size, " +
+            "p.hashtags as hashtags, p.photoPath as photoPath, " +
+            "substring(p.generatedDescription, 1, :previewLength + 1) as preview " +
+            "from Post p ";
 
+    String STREAM_FETCH_SIZE = "500";
+
+    String PHOTO_SELECT = "select p.id as id, p.createdAt as createdAt, p.photoPath as photoPath from Post p " +
+            "where p.userId = :userId and p.photoPath is not null and p.photoPath <> '' ";
+
+    @Query(SUMMARY_SELECT +
+            "where p.userId = :userId " +
+            "order by p.createdAt desc, p.id desc")
+    List<PostSummaryView> findFirstPage(
+            @Param("userId") Long userId,
+            @Param("previewLength") int previewLength,
+            Limit limit);
+
+    @Query(SUMMARY_SELECT +
+            "where p.userId = :userId " +
+            "and p.createdAt <= :createdAt " +
+            "and (p.createdAt < :createdAt or p.id < :id) " +
+            "order by p.createdAt desc, p.id desc")
+    List<PostSummaryView> findPageAfter(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            @Param("previewLength") int previewLength,
+            Limit limit);
+
+    @Query(SUMMARY_SELECT +
+            "join PostHashtag ph on ph.postId = p.id " +
+            "where ph.userId = :userId and ph.hashtagId = :hashtagId " +
+            "order by ph.createdAt desc, ph.postId desc")
+    List<PostSummaryView> findFirstPageByHashtag(
+            @Param("userId") Long userId,
+            @Param("hashtagId") Long hashtagId,
+            @Param("previewLength") int previewLength,
+            Limit limit);
+
+    @Query(SUMMARY_SELECT +
+            "join PostHashtag ph on ph.postId = p.id " +
+            "where ph.userId = :userId and ph.hashtagId = :hashtagId " +
+            "and ph.createdAt <= :createdAt " +
+            "and (ph.createdAt < :createdAt or ph.postId < :id) " +
+            "order by ph.createdAt desc, ph.postId desc")
+    List<PostSummaryView> findPageByHashtagAfter(
+            @Param("userId") Long userId,
+            @Param("hashtagId") Long hashtagId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            @Param("previewLength") int previewLength,
+            Limit limit);
+
+    @Query(SUMMARY_SELECT +
+            "where p.userId = :userId and p.id in :ids")
+    List<PostSummaryView> findSummariesByIds(
+            @Param("userId") Long userId,
+            @Param("ids") Collection<Long> ids,
+            @Param("previewLength") int previewLength);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Post findByIdAndUserId(Long id, Long userId);
 
-    long countByUserId(Long userId);
-}
\ No newline at end of file
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select p from Post p where p.userId = :userId order by p.createdAt, p.id")
+    List<Post> findFirstExportPage(@Param("userId") Long userId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("select p from Post p where p.userId = :userId " +
+            "and p.createdAt >= :createdAt " +
+            "and (p.createdAt > :createdAt or p.id > :id) " +
+            "order by p.createdAt, p.id")
+    List<Post> findExportPageAfter(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    @Query(PHOTO_SELECT +
+            "order by p.createdAt, p.id")
+    List<PostPhotoView> findFirstPhotoPage(@Param("userId") Long userId, Limit limit);
+
+    @Query(PHOTO_SELECT +
+            "and p.createdAt >= :createdAt " +
+            "and (p.createdAt > :createdAt or p.id > :id) " +
+            "order by p.createdAt, p.id")
+    List<PostPhotoView> findPhotoPageAfter(
+            @Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select p.id as id, p.originalDescription as originalDescription, " +
+            "p.generatedDescription as generatedDescription, p.hashtags as hashtags " +
+            "from Post p where p.userId = :userId")
+    Stream<PostTextView> streamTextByUserId(@Param("userId") Long userId);
+}
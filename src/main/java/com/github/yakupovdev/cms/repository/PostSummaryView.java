@@ -0,0 +1,18 @@
+package com.github.yakupovdev.cms.repository;
+
+import java.time.LocalDateTime;
+
+public interface PostSummaryView {
+
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+
+    String getSize();
+
+    String getHashtags();
+
+    String getPhotoPath();
+
+    String getPreview();
+}
@@ -0,0 +1,12 @@
+package com.github.yakupovdev.cms.repository;
+
+public interface PostTextView {
+
+    Long getId();
+
+    String getOriginalDescription();
+
+    String getGeneratedDescription();
+
+    String getHashtags();
+}
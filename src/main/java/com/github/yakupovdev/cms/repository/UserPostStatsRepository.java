@@ -0,0 +1,116 @@
+package com.github.yakupovdev.cms.repository;
+
+import com.github.yakupovdev.cms.entity.UserPostStats;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface UserPostStatsRepository extends JpaRepository<UserPostStats, Long> {
+
+    String AGGREGATE_COLUMNS = "count(*), " +
+            "count(*) filter (where p.size = 'SHORT'), " +
+            "count(*) filter (where p.size = 'MEDIUM'), " +
+            "count(*) filter (where p.size = 'LONG'), " +
+            "count(*) filter (where p.photo_path is not null and p.photo_path <> ''), " +
+            "count(*) filter (where p.photo_path is null or p.photo_path = ''), " +
+            "max(p.created_at) ";
+
+    String REPLACE_ON_DRIFT = "on conflict (user_id) do update set " +
+            "total_posts = excluded.total_posts, " +
+            "short_posts = excluded.short_posts, " +
+            "medium_posts = excluded.medium_posts, " +
+            "long_posts = excluded.long_posts, " +
+            "photo_posts = excluded.photo_posts, " +
+            "text_only_posts = excluded.text_only_posts, " +
+            "last_post_at = excluded.last_post_at " +
+            "where (user_post_stats.total_posts, user_post_stats.short_posts, user_post_stats.medium_posts, " +
+            "user_post_stats.long_posts, user_post_stats.photo_posts, user_post_stats.text_only_posts, " +
+            "user_post_stats.last_post_at) is distinct from " +
+            "(excluded.total_posts, excluded.short_posts, excluded.medium_posts, excluded.long_posts, " +
+            "excluded.photo_posts, excluded.text_only_posts, excluded.last_post_at)";
+
+    String INSERT_COLUMNS = "insert into user_post_stats (user_id, total_posts, short_posts, medium_posts, " +
+            "long_posts, photo_posts, text_only_posts, last_post_at) ";
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_post_stats"))
+    @Query(value = "update user_post_stats set " +
+            "total_posts = total_posts + 1, " +
+            "short_posts = short_posts + :shortPost, " +
+            "medium_posts = medium_posts + :mediumPost, " +
+            "long_posts = long_posts + :longPost, " +
+            "photo_posts = photo_posts + :photoPost, " +
+            "text_only_posts = text_only_posts + (1 - :photoPost), " +
+            "last_post_at = greatest(last_post_at, :createdAt) " +
+            "where user_id = :userId",
+            nativeQuery = true)
+    int recordPostCreated(
+            @Param("userId") Long userId,
+            @Param("shortPost") int shortPost,
+            @Param("mediumPost") int mediumPost,
+            @Param("longPost") int longPost,
+            @Param("photoPost") int photoPost,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_post_stats"))
+    @Query(value = INSERT_COLUMNS +
+            "select :userId, " + AGGREGATE_COLUMNS +
+            "from posts p where p.user_id = :userId " +
+            "on conflict (user_id) do nothing",
+            nativeQuery = true)
+    int initializeUser(@Param("userId") Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_post_stats"))
+    @Query(value = "update user_post_stats set " +
+            "total_posts = greatest(total_posts - 1, 0), " +
+            "short_posts = greatest(short_posts - :shortPost, 0), " +
+            "medium_posts = greatest(medium_posts - :mediumPost, 0), " +
+            "long_posts = greatest(long_posts - :longPost, 0), " +
+            "photo_posts = greatest(photo_posts - :photoPost, 0), " +
+            "text_only_posts = greatest(text_only_posts - (1 - :photoPost), 0), " +
+            "last_post_at = (select max(p.created_at) from posts p where p.user_id = :userId and p.id <> :postId) " +
+            "where user_id = :userId",
+            nativeQuery = true)
+    int recordPostDeleted(
+            @Param("userId") Long userId,
+            @Param("postId") Long postId,
+            @Param("shortPost") int shortPost,
+            @Param("mediumPost") int mediumPost,
+            @Param("longPost") int longPost,
+            @Param("photoPost") int photoPost);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_post_stats"))
+    @Query(value = INSERT_COLUMNS +
+            "select :userId, " + AGGREGATE_COLUMNS +
+            "from posts p where p.user_id = :userId " +
+            REPLACE_ON_DRIFT,
+            nativeQuery = true)
+    int reconcileUser(@Param("userId") Long userId);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_post_stats"))
+    @Query(value = INSERT_COLUMNS +
+            "select p.user_id, " + AGGREGATE_COLUMNS +
+            "from posts p group by p.user_id " +
+            REPLACE_ON_DRIFT,
+            nativeQuery = true)
+    int reconcileAll();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_post_stats"))
+    @Query(value = "update user_post_stats s set total_posts = 0, short_posts = 0, medium_posts = 0, " +
+            "long_posts = 0, photo_posts = 0, text_only_posts = 0, last_post_at = null " +
+            "where s.total_posts <> 0 and not exists (select 1 from posts p where p.user_id = s.user_id)",
+            nativeQuery = true)
+    int resetUsersWithoutPosts();
+}
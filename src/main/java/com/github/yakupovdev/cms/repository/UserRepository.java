@@ -1,15 +1,30 @@
 package com.github.yakupovdev.cms.repository;
 
 import com.github.yakupovdev.cms.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
 
     boolean existsByUsername(String username);
+
+    List<TokenRevocationView> findByTokensRevokedAtAfter(LocalDateTime since);
+
+    @Modifying
+    @Query("update User u set u.tokensRevokedAt = :revokedAt where u.id = :id")
+    int revokeTokens(@Param("id") Long id, @Param("revokedAt") LocalDateTime revokedAt);
 }
\ No newline at end of file
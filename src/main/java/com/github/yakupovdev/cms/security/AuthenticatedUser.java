@@ -0,0 +1,11 @@
+package com.github.yakupovdev.cms.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+public record AuthenticatedUser(Long id, String username) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.yakupovdev.cms.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,12 +9,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
+import java.util.Collections;
 
 @Component
 @RequiredArgsConstructor
@@ -21,7 +21,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     @Override
     protected void doFilterInternal(
@@ -40,19 +40,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
-                String username = jwtUtil.extractUsername(token);
+                Claims claims = jwtUtil.parseToken(token);
+                String username = claims.getSubject();
+                Long userId = jwtUtil.extractUserId(claims);
 
-                if (username != null &&
+                if (username != null && userId != null &&
                         SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                    if (jwtUtil.validateToken(token, username)) {
+                    if (tokenRevocationRegistry.isRevoked(userId, claims.getIssuedAt())) {
+                        log.debug("Rejected revoked token for user: {}", username);
+                    } else {
                         UsernamePasswordAuthenticationToken authentication =
                                 new UsernamePasswordAuthenticationToken(
-                                        userDetails,
+                                        new AuthenticatedUser(userId, username),
                                         null,
-                                        userDetails.getAuthorities()
+                                        Collections.emptyList()
                                 );
 
                         authentication.setDetails(
@@ -0,0 +1,78 @@
+package com.github.yakupovdev.cms.security;
+
+import com.github.yakupovdev.cms.repository.TokenRevocationView;
+import com.github.yakupovdev.cms.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@Slf4j
+public class TokenRevocationRegistry {
+
+    private final UserRepository userRepository;
+    private final long tokenLifetimeMillis;
+    private final Map<Long, Instant> revokedBefore = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastRefresh;
+
+    public TokenRevocationRegistry(
+            UserRepository userRepository,
+            @Value("${jwt.expiration}") long tokenLifetimeMillis) {
+        this.userRepository = userRepository;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+    }
+
+
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        Instant cutoff = revokedBefore.get(userId);
+        return cutoff != null && (issuedAt == null
+                || issuedAt.toInstant().truncatedTo(ChronoUnit.SECONDS).isBefore(cutoff));
+    }
+
+
+    @Transactional
+    public void revoke(Long userId) {
+        Instant cutoff = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+        if (userRepository.revokeTokens(userId, LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault())) == 0) {
+            throw new RuntimeException("User not found");
+        }
+
+        revokedBefore.merge(userId, cutoff, (current, next) -> next.isAfter(current) ? next : current);
+        log.info("Tokens issued before {} revoked for user id: {}", cutoff, userId);
+    }
+
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval:30000}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime oldestRelevant = now.minus(tokenLifetimeMillis, ChronoUnit.MILLIS);
+        LocalDateTime since = lastRefresh == null ? oldestRelevant : lastRefresh.minusMinutes(1);
+
+        List<TokenRevocationView> revocations = userRepository.findByTokensRevokedAtAfter(since);
+        for (TokenRevocationView revocation : revocations) {
+            Instant cutoff = revocation.getTokensRevokedAt().atZone(ZoneId.systemDefault()).toInstant()
+                    .truncatedTo(ChronoUnit.SECONDS);
+            revokedBefore.merge(revocation.getId(), cutoff, (current, next) -> next.isAfter(current) ? next : current);
+        }
+
+        Instant expired = oldestRelevant.atZone(ZoneId.systemDefault()).toInstant();
+        revokedBefore.values().removeIf(cutoff -> cutoff.isBefore(expired));
+
+        lastRefresh = now;
+        if (!revocations.isEmpty()) {
+            log.debug("Token revocations refreshed: {} updates, {} active", revocations.size(), revokedBefore.size());
+        }
+    }
+}
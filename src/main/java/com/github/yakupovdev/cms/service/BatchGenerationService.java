@@ -0,0 +1,242 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.dto.BatchItemResultDTO;
+import com.github.yakupovdev.cms.dto.BatchItemResultDTO.ItemStatus;
+import com.github.yakupovdev.cms.dto.BatchPostRequestDTO;
+import com.github.yakupovdev.cms.dto.BatchSummaryDTO;
+import com.github.yakupovdev.cms.dto.GeneratedPostDTO;
+import com.github.yakupovdev.cms.dto.PostRequestDTO;
+import com.github.yakupovdev.cms.exception.GenerationRejectedException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class BatchGenerationService {
+
+    private final PostService postService;
+    private final GenerationExecutor generationExecutor;
+    private final int maxItems;
+    private final int maxParallelism;
+    private final Duration batchTimeout;
+    private final ExecutorService coordinatorExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BatchGenerationService(
+            PostService postService,
+            GenerationExecutor generationExecutor,
+            @Value("${generation.batch.max-items:50}") int maxItems,
+            @Value("${generation.batch.max-parallelism:5}") int maxParallelism,
+            @Value("${generation.batch.timeout:10m}") Duration batchTimeout) {
+        this.postService = postService;
+        this.generationExecutor = generationExecutor;
+        this.maxItems = maxItems;
+        this.maxParallelism = maxParallelism;
+        this.batchTimeout = batchTimeout;
+    }
+
+
+    public SseEmitter generateBatch(BatchPostRequestDTO request, String username) {
+        List<PostRequestDTO> items = request.getItems();
+        log.info("Batch generation of {} items for user: {}", items.size(), username);
+
+        if (items.size() > maxItems) {
+            throw new RuntimeException("Batch too large (max " + maxItems + " items)");
+        }
+
+        generationExecutor.ensureCapacity();
+
+        List<StagedItem> stagedItems = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            stagedItems.add(stage(i, items.get(i)));
+        }
+
+        SseEmitter emitter = new SseEmitter(batchTimeout.toMillis());
+        AtomicBoolean cancelled = new AtomicBoolean();
+        emitter.onCompletion(() -> cancelled.set(true));
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(error -> cancelled.set(true));
+
+        try {
+            coordinatorExecutor.execute(() -> runBatch(stagedItems, emitter, cancelled, username));
+        } catch (RejectedExecutionException e) {
+            stagedItems.forEach(item -> deleteTempPhoto(item.tempPhotoPath()));
+            throw new RuntimeException("Batch generation is shutting down");
+        }
+
+        return emitter;
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        coordinatorExecutor.shutdown();
+    }
+
+
+    private StagedItem stage(int index, PostRequestDTO item) {
+        try {
+            String tempPhotoPath = postService.storeTempPhoto(item);
+            return new StagedItem(index, postService.detachRequest(item, tempPhotoPath), tempPhotoPath, null);
+        } catch (RuntimeException e) {
+            log.warn("Failed to stage batch item {}: {}", index, e.getMessage());
+            return new StagedItem(index, null, null, e.getMessage());
+        }
+    }
+
+
+    private void runBatch(List<StagedItem> stagedItems, SseEmitter emitter, AtomicBoolean cancelled, String username) {
+        long startedAt = System.nanoTime();
+        Semaphore permits = new Semaphore(maxParallelism);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (StagedItem item : stagedItems) {
+            if (item.stagingError() != null) {
+                failed.incrementAndGet();
+                send(emitter, cancelled, "item", failure(item.index(), item.stagingError()));
+                continue;
+            }
+
+            permits.acquireUninterruptibly();
+            if (cancelled.get()) {
+                permits.release();
+                failed.incrementAndGet();
+                deleteTempPhoto(item.tempPhotoPath());
+                continue;
+            }
+
+            try {
+                generationExecutor.submit(() -> {
+                    try {
+                        runItem(item, emitter, cancelled, succeeded, failed);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (GenerationRejectedException e) {
+                permits.release();
+                failed.incrementAndGet();
+                deleteTempPhoto(item.tempPhotoPath());
+                send(emitter, cancelled, "item", failure(item.index(), e.getMessage()));
+            }
+        }
+
+        permits.acquireUninterruptibly(maxParallelism);
+
+        BatchSummaryDTO summary = BatchSummaryDTO.builder()
+                .total(stagedItems.size())
+                .succeeded(succeeded.get())
+                .failed(failed.get())
+                .durationMs(Duration.ofNanos(System.nanoTime() - startedAt).toMillis())
+                .build();
+
+        if (cancelled.get()) {
+            log.info("Batch generation cancelled for user {} after the client went away: {} succeeded, {} skipped or failed",
+                    username, summary.getSucceeded(), summary.getFailed());
+            return;
+        }
+
+        send(emitter, cancelled, "complete", summary);
+        emitter.complete();
+
+        log.info("Batch generation finished for user {}: {} succeeded, {} failed in {} ms",
+                username, summary.getSucceeded(), summary.getFailed(), summary.getDurationMs());
+    }
+
+
+    private void runItem(
+            StagedItem item,
+            SseEmitter emitter,
+            AtomicBoolean cancelled,
+            AtomicInteger succeeded,
+            AtomicInteger failed) {
+
+        if (cancelled.get()) {
+            failed.incrementAndGet();
+            deleteTempPhoto(item.tempPhotoPath());
+            return;
+        }
+
+        GeneratedPostDTO result;
+        try {
+            result = postService.generateWithTempPhoto(item.request(), item.tempPhotoPath());
+        } catch (Exception e) {
+            log.warn("Batch item {} failed: {}", item.index(), e.getMessage());
+            failed.incrementAndGet();
+            deleteTempPhoto(item.tempPhotoPath());
+            send(emitter, cancelled, "item", failure(item.index(), e.getMessage()));
+            return;
+        }
+
+        succeeded.incrementAndGet();
+        boolean delivered = send(emitter, cancelled, "item", BatchItemResultDTO.builder()
+                .index(item.index())
+                .status(ItemStatus.SUCCEEDED)
+                .result(result)
+                .build());
+        if (!delivered) {
+            deleteTempPhoto(item.tempPhotoPath());
+        }
+    }
+
+
+    private BatchItemResultDTO failure(int index, String error) {
+        return BatchItemResultDTO.builder()
+                .index(index)
+                .status(ItemStatus.FAILED)
+                .error(error)
+                .build();
+    }
+
+
+    private boolean send(SseEmitter emitter, AtomicBoolean cancelled, String eventName, Object data) {
+        synchronized (emitter) {
+            if (cancelled.get()) {
+                return false;
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(eventName)
+                        .data(data, MediaType.APPLICATION_JSON));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Could not deliver batch event '{}', cancelling the batch: {}", eventName, e.getMessage());
+                cancelled.set(true);
+                return false;
+            }
+        }
+    }
+
+
+    private void deleteTempPhoto(String tempPhotoPath) {
+        if (tempPhotoPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(tempPhotoPath));
+        } catch (IOException e) {
+            log.warn("Failed to delete temp photo: {}", e.getMessage());
+        }
+    }
+
+
+    private record StagedItem(int index, PostRequestDTO request, String tempPhotoPath, String stagingError) {
+    }
+}
@@ -0,0 +1,182 @@
+package com.github.yakupovdev.cms.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+@Component
+public class ChatCompletionCodec {
+
+    private static final Pattern SAFE_MIME_TYPE = Pattern.compile("image/[A-Za-z0-9.+-]+");
+
+    private final JsonFactory jsonFactory;
+
+    public ChatCompletionCodec(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+
+    public void writeRequest(ChatCompletionRequest request, OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generator.writeStartObject();
+            generator.writeStringField("model", request.model());
+            generator.writeNumberField("temperature", request.temperature());
+            generator.writeNumberField("max_tokens", request.maxTokens());
+            generator.writeNumberField("top_p", request.topP());
+            generator.writeNumberField("frequency_penalty", request.frequencyPenalty());
+            generator.writeNumberField("presence_penalty", request.presencePenalty());
+            if (request.stream()) {
+                generator.writeBooleanField("stream", true);
+            }
+
+            generator.writeArrayFieldStart("messages");
+
+            generator.writeStartObject();
+            generator.writeStringField("role", "system");
+            generator.writeStringField("content", request.systemMessage());
+            generator.writeEndObject();
+
+            generator.writeStartObject();
+            generator.writeStringField("role", "user");
+            if (request.image() != null) {
+                generator.writeArrayFieldStart("content");
+
+                generator.writeStartObject();
+                generator.writeStringField("type", "text");
+                generator.writeStringField("text", request.prompt());
+                generator.writeEndObject();
+
+                generator.writeStartObject();
+                generator.writeStringField("type", "image_url");
+                generator.writeObjectFieldStart("image_url");
+                writeImageDataUrl(generator, out, request.image(), request.imageMimeType());
+                if (request.imageDetail() != null) {
+                    generator.writeStringField("detail", request.imageDetail());
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+
+                generator.writeEndArray();
+            } else {
+                generator.writeStringField("content", request.prompt());
+            }
+            generator.writeEndObject();
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+
+    public String readMessageContent(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            String content = readFirstChoiceContent(parser, "message");
+            if (content == null) {
+                throw new IOException("OpenAI response has no choices[0].message.content");
+            }
+            return content.trim();
+        }
+    }
+
+
+    public String readDeltaContent(String chunk) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(chunk)) {
+            return readFirstChoiceContent(parser, "delta");
+        }
+    }
+
+
+    private void writeImageDataUrl(
+            JsonGenerator generator,
+            OutputStream out,
+            InputStreamSource image,
+            String mimeType) throws IOException {
+
+        String safeMimeType = mimeType != null && SAFE_MIME_TYPE.matcher(mimeType).matches()
+                ? mimeType
+                : "image/jpeg";
+
+        generator.writeFieldName("url");
+        generator.writeRawValue("\"data:" + safeMimeType + ";base64,");
+        generator.flush();
+
+        try (InputStream in = image.getInputStream();
+             OutputStream base64 = Base64.getEncoder().wrap(StreamUtils.nonClosing(out))) {
+            in.transferTo(base64);
+        }
+
+        generator.writeRaw('"');
+    }
+
+
+    private String readFirstChoiceContent(JsonParser parser, String messageField) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return null;
+                }
+                return readObjectField(parser, messageField);
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+
+    private String readObjectField(JsonParser parser, String messageField) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (messageField.equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JsonToken token = parser.nextToken();
+                    if ("content".equals(name)) {
+                        return token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    }
+                    parser.skipChildren();
+                }
+                return null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+
+    public record ChatCompletionRequest(
+            String model,
+            double temperature,
+            double topP,
+            double frequencyPenalty,
+            double presencePenalty,
+            int maxTokens,
+            boolean stream,
+            String systemMessage,
+            String prompt,
+            InputStreamSource image,
+            String imageMimeType,
+            String imageDetail) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.yakupovdev.cms.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+final class ExifOrientation {
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private ExifOrientation() {
+    }
+
+    static int read(InputStream in, int limit) throws IOException {
+        byte[] header = in.readNBytes(limit);
+
+        if (header.length < 4 || (header[0] & 0xFF) != 0xFF || (header[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+
+        int offset = 2;
+        while (offset + 4 <= header.length) {
+            if ((header[offset] & 0xFF) != 0xFF) {
+                return 1;
+            }
+
+            int marker = header[offset + 1] & 0xFF;
+            int length = readShort(header, offset + 2, true);
+
+            if (marker == 0xDA || marker == 0xD9) {
+                return 1;
+            }
+
+            if (marker == 0xE1 && isExif(header, offset + 4)) {
+                return readOrientation(header, offset + 10, Math.min(header.length, offset + 2 + length));
+            }
+
+            offset += 2 + length;
+        }
+
+        return 1;
+    }
+
+
+    private static boolean isExif(byte[] data, int offset) {
+        return offset + 6 <= data.length
+                && data[offset] == 'E' && data[offset + 1] == 'x'
+                && data[offset + 2] == 'i' && data[offset + 3] == 'f'
+                && data[offset + 4] == 0 && data[offset + 5] == 0;
+    }
+
+
+    private static int readOrientation(byte[] data, int tiffStart, int end) {
+        if (tiffStart + 8 > end) {
+            return 1;
+        }
+
+        boolean bigEndian = data[tiffStart] == 'M' && data[tiffStart + 1] == 'M';
+        int ifdOffset = readInt(data, tiffStart + 4, bigEndian);
+        int ifdStart = tiffStart + ifdOffset;
+
+        if (ifdOffset < 8 || ifdStart + 2 > end) {
+            return 1;
+        }
+
+        int entries = readShort(data, ifdStart, bigEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifdStart + 2 + i * 12;
+            if (entry + 12 > end) {
+                return 1;
+            }
+            if (readShort(data, entry, bigEndian) == ORIENTATION_TAG) {
+                int orientation = readShort(data, entry + 8, bigEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+
+        return 1;
+    }
+
+
+    private static int readShort(byte[] data, int offset, boolean bigEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return bigEndian ? (b0 << 8) | b1 : (b1 << 8) | b0;
+    }
+
+
+    private static int readInt(byte[] data, int offset, boolean bigEndian) {
+        int high = readShort(data, bigEndian ? offset : offset + 2, bigEndian);
+        int low = readShort(data, bigEndian ? offset + 2 : offset, bigEndian);
+        return (high << 16) | low;
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+@Component
+@Slf4j
+public class GenerationCache {
+
+    private final boolean enabled;
+    private final Cache<String, String> cache;
+
+    public GenerationCache(
+            MeterRegistry meterRegistry,
+            @Value("${openai.cache.enabled:true}") boolean enabled,
+            @Value("${openai.cache.max-size:1000}") long maxSize,
+            @Value("${openai.cache.ttl:1h}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "openai.generation");
+        log.info("Generation cache initialized: enabled={}, maxSize={}, ttl={}",
+                enabled, maxSize, ttl);
+    }
+
+
+    public String get(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+
+    public void put(String key, String content) {
+        if (enabled) {
+            cache.put(key, content);
+        }
+    }
+
+
+    public String keyFor(String... parts) {
+        MessageDigest digest = sha256();
+        for (String part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+
+    public String digestOf(MultipartFile photo) throws IOException {
+        if (photo == null || photo.isEmpty()) {
+            return "no-image";
+        }
+
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = photo.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.exception.GenerationRejectedException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class GenerationExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    public GenerationExecutor(
+            @Value("${generation.async.max-concurrency:16}") int maxConcurrency,
+            @Value("${generation.async.queue-capacity:100}") int queueCapacity,
+            @Value("${generation.async.retry-after-seconds:10}") long retryAfterSeconds) {
+        this.executor = new ThreadPoolExecutor(
+                maxConcurrency,
+                maxConcurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("generation-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        this.retryAfterSeconds = retryAfterSeconds;
+        log.info("Generation executor initialized: maxConcurrency={}, queueCapacity={}",
+                maxConcurrency, queueCapacity);
+    }
+
+
+    public void submit(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Generation queue is full: active={}, queued={}",
+                    executor.getActiveCount(), executor.getQueue().size());
+            throw new GenerationRejectedException(
+                    "Too many generation requests in progress, please retry later",
+                    retryAfterSeconds
+            );
+        }
+    }
+
+
+    public void ensureCapacity() {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            log.warn("Generation queue is full: active={}, queued={}",
+                    executor.getActiveCount(), executor.getQueue().size());
+            throw new GenerationRejectedException(
+                    "Too many generation requests in progress, please retry later",
+                    retryAfterSeconds
+            );
+        }
+    }
+
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.dto.GeneratedPostDTO;
+import com.github.yakupovdev.cms.dto.GenerationJobDTO;
+import com.github.yakupovdev.cms.dto.GenerationJobDTO.JobStatus;
+import com.github.yakupovdev.cms.dto.PostRequestDTO;
+import com.github.yakupovdev.cms.exception.GenerationRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class GenerationJobService {
+
+    private final PostService postService;
+    private final GenerationExecutor generationExecutor;
+    private final Duration maxQueueWait;
+    private final Duration jobTtl;
+
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+
+    public GenerationJobService(
+            PostService postService,
+            GenerationExecutor generationExecutor,
+            @Value("${generation.async.max-queue-wait:30s}") Duration maxQueueWait,
+            @Value("${generation.async.job-ttl:15m}") Duration jobTtl) {
+        this.postService = postService;
+        this.generationExecutor = generationExecutor;
+        this.maxQueueWait = maxQueueWait;
+        this.jobTtl = jobTtl;
+    }
+
+
+    public GenerationJobDTO submit(PostRequestDTO request, String username) {
+        log.info("Submitting async generation job for user: {}", username);
+
+        String tempPhotoPath = postService.storeTempPhoto(request);
+        PostRequestDTO detachedRequest = postService.detachRequest(request, tempPhotoPath);
+
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), username);
+        jobs.put(job.id, job);
+
+        try {
+            generationExecutor.submit(() -> runJob(job, detachedRequest, tempPhotoPath));
+        } catch (GenerationRejectedException e) {
+            jobs.remove(job.id);
+            deleteTempPhoto(tempPhotoPath);
+            throw e;
+        }
+
+        log.info("Generation job {} queued (queue depth: {})",
+                job.id, generationExecutor.getQueueDepth());
+
+        return job.toDTO();
+    }
+
+
+    public GenerationJobDTO getJob(String jobId, String username) {
+        GenerationJob job = jobs.get(jobId);
+
+        if (job == null || !job.username.equals(username)) {
+            throw new RuntimeException("Job not found or access denied");
+        }
+
+        return job.toDTO();
+    }
+
+
+    @Scheduled(fixedDelayString = "${generation.async.cleanup-interval:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(jobTtl);
+
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(threshold));
+
+        int evicted = before - jobs.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} finished generation jobs", evicted);
+        }
+    }
+
+
+    private void runJob(GenerationJob job, PostRequestDTO request, String tempPhotoPath) {
+        job.startedAt = LocalDateTime.now();
+
+        if (Duration.between(job.submittedAt, job.startedAt).compareTo(maxQueueWait) > 0) {
+            log.warn("Generation job {} expired after waiting in queue for more than {}",
+                    job.id, maxQueueWait);
+            job.error = "Job waited in queue longer than " + maxQueueWait.toSeconds() + "s";
+            job.finish(JobStatus.EXPIRED);
+            deleteTempPhoto(tempPhotoPath);
+            return;
+        }
+
+        job.status = JobStatus.RUNNING;
+        try {
+            job.result = postService.generateWithTempPhoto(request, tempPhotoPath);
+            job.finish(JobStatus.COMPLETED);
+            log.info("Generation job {} completed", job.id);
+        } catch (Exception e) {
+            log.error("Generation job {} failed: {}", job.id, e.getMessage());
+            job.error = e.getMessage();
+            job.finish(JobStatus.FAILED);
+            deleteTempPhoto(tempPhotoPath);
+        }
+    }
+
+
+    private void deleteTempPhoto(String tempPhotoPath) {
+        if (tempPhotoPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(tempPhotoPath));
+        } catch (IOException e) {
+            log.warn("Failed to delete temp photo: {}", e.getMessage());
+        }
+    }
+
+
+    private static class GenerationJob {
+
+        private final String id;
+        private final String username;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile GeneratedPostDTO result;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+
+        private GenerationJob(String id, String username) {
+            this.id = id;
+            this.username = username;
+        }
+
+        private void finish(JobStatus finalStatus) {
+            completedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        private GenerationJobDTO toDTO() {
+            return GenerationJobDTO.builder()
+                    .jobId(id)
+                    .status(status)
+                    .result(result)
+                    .error(error)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.dto.GeneratedPostDTO;
+import com.github.yakupovdev.cms.dto.PostRequestDTO;
+import com.github.yakupovdev.cms.exception.GenerationRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class GenerationStreamService {
+
+    private final PostService postService;
+    private final GenerationExecutor generationExecutor;
+    private final Duration streamTimeout;
+
+    public GenerationStreamService(
+            PostService postService,
+            GenerationExecutor generationExecutor,
+            @Value("${generation.stream.timeout:120s}") Duration streamTimeout) {
+        this.postService = postService;
+        this.generationExecutor = generationExecutor;
+        this.streamTimeout = streamTimeout;
+    }
+
+
+    public SseEmitter streamPost(PostRequestDTO request, String username) {
+        log.info("Streaming post generation for user: {}", username);
+
+        String tempPhotoPath = postService.storeTempPhoto(request);
+        PostRequestDTO detachedRequest = postService.detachRequest(request, tempPhotoPath);
+
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+
+        try {
+            generationExecutor.submit(() -> runStream(emitter, detachedRequest, tempPhotoPath, username));
+        } catch (GenerationRejectedException e) {
+            deleteTempPhoto(tempPhotoPath);
+            throw e;
+        }
+
+        return emitter;
+    }
+
+
+    private void runStream(SseEmitter emitter, PostRequestDTO request, String tempPhotoPath, String username) {
+        try {
+            GeneratedPostDTO result = postService.streamWithTempPhoto(
+                    request,
+                    tempPhotoPath,
+                    token -> send(emitter, "token", Map.of("content", token))
+            );
+
+            send(emitter, "result", result);
+            emitter.complete();
+            log.info("Streamed generation completed for user: {}", username);
+
+        } catch (Exception e) {
+            log.error("Streamed generation failed for user {}: {}", username, e.getMessage());
+            deleteTempPhoto(tempPhotoPath);
+            try {
+                send(emitter, "error", Map.of("message", String.valueOf(e.getMessage())));
+                emitter.complete();
+            } catch (UncheckedIOException ignored) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+
+    private void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(eventName)
+                    .data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Client disconnected", e);
+        }
+    }
+
+
+    private void deleteTempPhoto(String tempPhotoPath) {
+        if (tempPhotoPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(tempPhotoPath));
+        } catch (IOException e) {
+            log.warn("Failed to delete temp photo: {}", e.getMessage());
+        }
+    }
+}
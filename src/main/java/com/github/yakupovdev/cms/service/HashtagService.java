@@ -0,0 +1,239 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.dto.HashtagCountDTO;
+import com.github.yakupovdev.cms.dto.TrendingHashtagDTO;
+import com.github.yakupovdev.cms.entity.Hashtag;
+import com.github.yakupovdev.cms.entity.Post;
+import com.github.yakupovdev.cms.repository.HashtagOccurrenceView;
+import com.github.yakupovdev.cms.repository.HashtagRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class HashtagService {
+
+    private static final int MAX_TAG_LENGTH = 100;
+
+    private final HashtagRepository hashtagRepository;
+    private final TrendingHashtags trendingHashtags;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int backfillBatchSize;
+    private final Duration seedWindow;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public HashtagService(
+            HashtagRepository hashtagRepository,
+            TrendingHashtags trendingHashtags,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${hashtags.backfill.batch-size:5000}") int backfillBatchSize,
+            @Value("${hashtags.trending.seed-window:28d}") Duration seedWindow,
+            @Value("${hashtags.top.default-size:10}") int defaultLimit,
+            @Value("${hashtags.top.max-size:100}") int maxLimit) {
+        this.hashtagRepository = hashtagRepository;
+        this.trendingHashtags = trendingHashtags;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.backfillBatchSize = backfillBatchSize;
+        this.seedWindow = seedWindow;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+
+    public static List<String> normalize(String hashtags) {
+        if (hashtags == null || hashtags.isEmpty()) {
+            return List.of();
+        }
+
+        return Arrays.stream(hashtags.split(" "))
+                .map(HashtagService::normalizeTag)
+                .filter(tag -> !tag.isEmpty() && tag.length() <= MAX_TAG_LENGTH)
+                .distinct()
+                .toList();
+    }
+
+
+    public static String normalizeTag(String tag) {
+        int start = 0;
+        while (start < tag.length() && tag.charAt(start) == '#') {
+            start++;
+        }
+        return tag.substring(start).toLowerCase(Locale.ROOT);
+    }
+
+
+    @Transactional
+    public void recordCreated(Collection<Post> posts) {
+        List<Post> tagged = posts.stream()
+                .filter(post -> !normalize(post.getHashtags()).isEmpty())
+                .toList();
+        if (tagged.isEmpty()) {
+            return;
+        }
+
+        long fromId = tagged.stream().mapToLong(Post::getId).min().orElseThrow();
+        long toId = tagged.stream().mapToLong(Post::getId).max().orElseThrow();
+
+        entityManager.flush();
+        hashtagRepository.insertMissingTags(fromId, toId);
+        hashtagRepository.mapPosts(fromId, toId);
+
+        List<Occurrence> occurrences = tagged.stream()
+                .map(post -> new Occurrence(normalize(post.getHashtags()), post.getCreatedAt()))
+                .toList();
+        afterCommit(() -> occurrences.forEach(
+                occurrence -> trendingHashtags.add(occurrence.tags(), occurrence.createdAt())));
+    }
+
+
+    @Transactional
+    public void recordDeleted(Post post) {
+        List<String> tags = normalize(post.getHashtags());
+        if (tags.isEmpty()) {
+            return;
+        }
+
+        if (hashtagRepository.unmapPost(post.getId()) > 0) {
+            hashtagRepository.deleteEmptyCounts(post.getUserId());
+        }
+
+        afterCommit(() -> trendingHashtags.remove(tags, post.getCreatedAt()));
+    }
+
+
+    @Transactional(readOnly = true)
+    public Optional<Long> findHashtagId(String tag) {
+        return hashtagRepository.findByTag(normalizeTag(tag)).map(Hashtag::getId);
+    }
+
+
+    @Transactional(readOnly = true)
+    public List<HashtagCountDTO> getTopForUser(Long userId, Integer limit) {
+        return hashtagRepository.findTopForUser(userId, Limit.of(resolveLimit(limit))).stream()
+                .map(view -> HashtagCountDTO.builder()
+                        .tag(view.getTag())
+                        .postCount(view.getPostCount())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+
+    public List<TrendingHashtagDTO> getTrending(Integer limit) {
+        return trendingHashtags.top(resolveLimit(limit)).stream()
+                .map(entry -> TrendingHashtagDTO.builder()
+                        .tag(entry.tag())
+                        .score(entry.score())
+                        .maxError(entry.maxError())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            backfill();
+            seedTrending();
+        } catch (RuntimeException e) {
+            log.warn("Hashtag index initialization failed, retrying on the next backfill: {}", e.getMessage());
+        }
+    }
+
+
+    @Scheduled(cron = "${hashtags.backfill.cron:0 45 3 * * *}")
+    public void backfill() {
+        long startedAt = System.currentTimeMillis();
+        long afterId = 0;
+        int mapped = 0;
+
+        while (true) {
+            List<Long> ids = hashtagRepository.findUnmappedPostIds(afterId, backfillBatchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            long fromId = ids.get(0);
+            long toId = ids.get(ids.size() - 1);
+            transactionTemplate.executeWithoutResult(status -> {
+                hashtagRepository.insertMissingTags(fromId, toId);
+                hashtagRepository.mapPosts(fromId, toId);
+            });
+
+            mapped += ids.size();
+            afterId = toId;
+        }
+
+        if (mapped > 0) {
+            log.info("Hashtag backfill mapped {} posts in {} ms", mapped, System.currentTimeMillis() - startedAt);
+        }
+    }
+
+
+    public void seedTrending() {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minus(seedWindow);
+
+        trendingHashtags.clear();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<HashtagOccurrenceView> occurrences = hashtagRepository.streamOccurrencesSince(since)) {
+                occurrences.forEach(occurrence ->
+                        trendingHashtags.add(List.of(occurrence.getTag()), occurrence.getCreatedAt()));
+            }
+        });
+
+        log.info("Trending hashtags seeded with {} tags from the last {} in {} ms",
+                trendingHashtags.size(), seedWindow, System.currentTimeMillis() - startedAt);
+    }
+
+
+    private int resolveLimit(Integer limit) {
+        return limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+    }
+
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+
+    private record Occurrence(List<String> tags, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.dto.PostRequestDTO;
+import com.github.yakupovdev.cms.dto.PostRequestDTO.DescriptionSize;
+import com.github.yakupovdev.cms.dto.PostRequestDTO.ImageDetail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+
+@Component
+@Slf4j
+public class ImagePreprocessor {
+
+    private static final int EXIF_SCAN_LIMIT = 128 * 1024;
+    private static final int LOW_DETAIL_MAX_DIMENSION = 512;
+
+    private final boolean enabled;
+    private final int maxDimension;
+    private final float jpegQuality;
+    private final ImageDetail shortDetail;
+    private final ImageDetail mediumDetail;
+    private final ImageDetail longDetail;
+    private final Counter bytesSaved;
+    private final Counter imagesReencoded;
+
+    public ImagePreprocessor(
+            MeterRegistry meterRegistry,
+            @Value("${openai.image.preprocess.enabled:true}") boolean enabled,
+            @Value("${openai.image.max-dimension:2048}") int maxDimension,
+            @Value("${openai.image.jpeg-quality:0.85}") float jpegQuality,
+            @Value("${openai.image.detail.short:LOW}") ImageDetail shortDetail,
+            @Value("${openai.image.detail.medium:AUTO}") ImageDetail mediumDetail,
+            @Value("${openai.image.detail.long:HIGH}") ImageDetail longDetail) {
+        this.enabled = enabled;
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+        this.shortDetail = shortDetail;
+        this.mediumDetail = mediumDetail;
+        this.longDetail = longDetail;
+        this.bytesSaved = Counter.builder("openai.image.bytes.saved")
+                .description("Upload bytes saved by image preprocessing")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.imagesReencoded = Counter.builder("openai.image.reencoded")
+                .description("Images downscaled or re-encoded before upload")
+                .register(meterRegistry);
+    }
+
+
+    public ImageDetail resolveDetail(PostRequestDTO request) {
+        if (request.getImageDetail() != null) {
+            return request.getImageDetail();
+        }
+        return detailForSize(request.getSize());
+    }
+
+
+    public PreparedImage prepare(MultipartFile photo, ImageDetail detail) throws IOException {
+        PreparedImage original = new PreparedImage(photo, photo.getContentType(), detail);
+
+        if (!enabled) {
+            return original;
+        }
+
+        boolean isJpeg = "image/jpeg".equalsIgnoreCase(photo.getContentType());
+        int limit = detail == ImageDetail.LOW
+                ? Math.min(maxDimension, LOW_DETAIL_MAX_DIMENSION)
+                : maxDimension;
+
+        int orientation;
+        double scale;
+        BufferedImage source;
+        try (InputStream in = new BufferedInputStream(photo.getInputStream(), EXIF_SCAN_LIMIT)) {
+            in.mark(EXIF_SCAN_LIMIT);
+            orientation = ExifOrientation.read(in, EXIF_SCAN_LIMIT);
+            in.reset();
+
+            try (ImageInputStream images = ImageIO.createImageInputStream(in)) {
+                Iterator<ImageReader> readers = images == null
+                        ? Collections.emptyIterator()
+                        : ImageIO.getImageReaders(images);
+                if (!readers.hasNext()) {
+                    log.debug("Image format not decodable ({}), sending original", photo.getContentType());
+                    return original;
+                }
+
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(images, true, true);
+                    scale = Math.min(1.0,
+                            (double) limit / Math.max(reader.getWidth(0), reader.getHeight(0)));
+
+                    if (scale == 1.0 && orientation == 1 && isJpeg) {
+                        return original;
+                    }
+
+                    source = reader.read(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image could not be decoded ({}), sending original: {}",
+                    photo.getContentType(), e.getMessage());
+            return original;
+        }
+
+        byte[] encoded = encodeJpeg(transform(source, scale, orientation));
+
+        if (encoded.length >= photo.getSize() && scale == 1.0 && orientation == 1) {
+            return original;
+        }
+
+        long saved = photo.getSize() - encoded.length;
+        if (saved > 0) {
+            bytesSaved.increment(saved);
+        }
+        imagesReencoded.increment();
+
+        log.info("Image preprocessed: {}x{} -> scale {}, orientation {}, {} -> {} bytes",
+                source.getWidth(), source.getHeight(), String.format("%.2f", scale),
+                orientation, photo.getSize(), encoded.length);
+
+        return new PreparedImage(new ByteArrayResource(encoded), "image/jpeg", detail);
+    }
+
+
+    private ImageDetail detailForSize(DescriptionSize size) {
+        return switch (size) {
+            case SHORT -> shortDetail;
+            case MEDIUM -> mediumDetail;
+            case LONG -> longDetail;
+        };
+    }
+
+
+    static BufferedImage transform(BufferedImage source, double scale, int orientation) {
+        BufferedImage current = source;
+        double remaining = scale;
+
+        while (remaining < 0.5) {
+            current = draw(current,
+                    Math.max(1, current.getWidth() / 2),
+                    Math.max(1, current.getHeight() / 2),
+                    AffineTransform.getScaleInstance(0.5, 0.5));
+            remaining *= 2;
+        }
+
+        int width = Math.max(1, (int) Math.round(current.getWidth() * remaining));
+        int height = Math.max(1, (int) Math.round(current.getHeight() * remaining));
+        boolean swapsAxes = orientation >= 5 && orientation <= 8;
+
+        AffineTransform transform = orientationTransform(orientation, width, height);
+        transform.concatenate(AffineTransform.getScaleInstance(
+                (double) width / current.getWidth(),
+                (double) height / current.getHeight()));
+
+        return draw(current,
+                swapsAxes ? height : width,
+                swapsAxes ? width : height,
+                transform);
+    }
+
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        return out.toByteArray();
+    }
+
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        return encodeJpeg(image, jpegQuality);
+    }
+
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, AffineTransform transform) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
+                    RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+
+    private static AffineTransform orientationTransform(int orientation, int width, int height) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, width);
+            default -> new AffineTransform();
+        };
+    }
+
+
+    public record PreparedImage(InputStreamSource source, String mimeType, ImageDetail detail) {
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.yakupovdev.cms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class OpenAICircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openWaitNanos;
+    private final int halfOpenProbes;
+    private final Counter rejected;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int recorded;
+    private int cursor;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public OpenAICircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${openai.circuit.window-size:20}") int windowSize,
+            @Value("${openai.circuit.minimum-calls:10}") int minimumCalls,
+            @Value("${openai.circuit.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${openai.circuit.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+            @Value("${openai.circuit.slow-call-duration:20s}") Duration slowCallDuration,
+            @Value("${openai.circuit.wait-in-open:30s}") Duration waitInOpen,
+            @Value("${openai.circuit.half-open-probes:3}") int halfOpenProbes) {
+        this.meterRegistry = meterRegistry;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openWaitNanos = waitInOpen.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.failedCalls = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+
+        this.rejected = Counter.builder("openai.circuit.rejected")
+                .description("Calls rejected while the OpenAI circuit was open")
+                .register(meterRegistry);
+        Gauge.builder("openai.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("OpenAI circuit state (0=closed, 1=half-open, 2=open)")
+                .register(meterRegistry);
+    }
+
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openWaitNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+
+    public synchronized boolean isCallPermitted() {
+        State current = getState();
+        return current == State.CLOSED
+                || (current == State.HALF_OPEN && probesStarted < halfOpenProbes);
+    }
+
+
+    public synchronized boolean tryAcquirePermission() {
+        State current = getState();
+
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.HALF_OPEN && probesStarted < halfOpenProbes) {
+            probesStarted++;
+            return true;
+        }
+
+        rejected.increment();
+        return false;
+    }
+
+
+    public synchronized void onSuccess(long durationNanos) {
+        record(false, durationNanos >= slowCallNanos);
+    }
+
+
+    public synchronized void onFailure(long durationNanos) {
+        record(true, durationNanos >= slowCallNanos);
+    }
+
+
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && probesStarted > 0) {
+            probesStarted--;
+        }
+    }
+
+
+    public synchronized long getRetryAfterSeconds() {
+        long remaining = openWaitNanos - (System.nanoTime() - openedAtNanos);
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining));
+    }
+
+
+    private void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                transitionTo(State.OPEN);
+            } else if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+
+        if (state == State.OPEN) {
+            return;
+        }
+
+        if (recorded == windowSize) {
+            failureCount -= failedCalls[cursor] ? 1 : 0;
+            slowCount -= slowCalls[cursor] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failedCalls[cursor] = failed;
+        slowCalls[cursor] = slow;
+        failureCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        cursor = (cursor + 1) % windowSize;
+
+        if (recorded < minimumCalls) {
+            return;
+        }
+
+        double failureRate = 100.0 * failureCount / recorded;
+        double slowCallRate = 100.0 * slowCount / recorded;
+        if (failureRate >= failureRateThreshold || slowCallRate >= slowCallRateThreshold) {
+            log.warn("OpenAI circuit opening: failure rate {}%, slow call rate {}% over {} calls",
+                    Math.round(failureRate), Math.round(slowCallRate), recorded);
+            transitionTo(State.OPEN);
+        }
+    }
+
+
+    private void transitionTo(State target) {
+        if (state == target) {
+            return;
+        }
+
+        log.info("OpenAI circuit transition: {} -> {}", state, target);
+        Counter.builder("openai.circuit.transitions")
+                .description("OpenAI circuit breaker state transitions")
+                .tag("from", state.name())
+                .tag("to", target.name())
+                .register(meterRegistry)
+                .increment();
+
+        state = target;
+        probesStarted = 0;
+        probesSucceeded = 0;
+
+        if (target == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (target == State.CLOSED) {
+            recorded = 0;
+            cursor = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+}
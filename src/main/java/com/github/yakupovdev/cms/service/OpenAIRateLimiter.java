@@ -0,0 +1,280 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.exception.GenerationRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+@Slf4j
+public class OpenAIRateLimiter {
+
+    private static final Pattern RESET_DURATION = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+    private static final long MAX_WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Counter throttled;
+
+    private double concurrencyLimit;
+    private int inFlight;
+    private double tokensPerMinute;
+    private double availableTokens;
+    private long lastRefillNanos = System.nanoTime();
+    private long blockedUntilNanos = System.nanoTime();
+
+    public OpenAIRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${openai.rate-limit.initial-concurrency:8}") int initialConcurrency,
+            @Value("${openai.rate-limit.min-concurrency:1}") int minConcurrency,
+            @Value("${openai.rate-limit.max-concurrency:20}") int maxConcurrency,
+            @Value("${openai.http.max-connections-per-route:20}") int maxConnectionsPerRoute,
+            @Value("${openai.rate-limit.tokens-per-minute:30000}") long tokensPerMinute,
+            @Value("${openai.rate-limit.acquire-timeout:30s}") Duration acquireTimeout,
+            @Value("${openai.retry.base-backoff:500ms}") Duration baseBackoff,
+            @Value("${openai.retry.max-backoff:20s}") Duration maxBackoff) {
+        if (maxConcurrency > maxConnectionsPerRoute) {
+            log.warn("openai.rate-limit.max-concurrency={} exceeds the HTTP pool's {} connections per route, capping it",
+                    maxConcurrency, maxConnectionsPerRoute);
+        }
+        this.maxConcurrency = Math.min(maxConcurrency, maxConnectionsPerRoute);
+        this.minConcurrency = Math.min(minConcurrency, this.maxConcurrency);
+        this.concurrencyLimit = Math.min(initialConcurrency, this.maxConcurrency);
+        this.tokensPerMinute = tokensPerMinute;
+        this.availableTokens = tokensPerMinute;
+        this.acquireTimeout = acquireTimeout;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+
+        this.throttled = Counter.builder("openai.ratelimit.throttled")
+                .description("Upstream responses rejected with 429")
+                .register(meterRegistry);
+        Gauge.builder("openai.ratelimit.concurrency.limit", this, l -> l.read(() -> l.concurrencyLimit))
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("openai.ratelimit.inflight", this, l -> l.read(() -> (double) l.inFlight))
+                .description("Upstream calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("openai.ratelimit.tokens.available", this, l -> l.read(() -> {
+                    l.refill(System.nanoTime());
+                    return l.availableTokens;
+                }))
+                .description("Estimated token budget left in the current minute")
+                .register(meterRegistry);
+    }
+
+
+    public void acquire(int estimatedTokens) {
+        long deadline = System.nanoTime() + acquireTimeout.toNanos();
+
+        lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+
+                long waitNanos = 0;
+                if (now < blockedUntilNanos) {
+                    waitNanos = blockedUntilNanos - now;
+                } else if (inFlight >= (int) Math.floor(concurrencyLimit)) {
+                    waitNanos = MAX_WAIT_SLICE_NANOS;
+                } else if (availableTokens < Math.min(estimatedTokens, tokensPerMinute)) {
+                    double missing = Math.min(estimatedTokens, tokensPerMinute) - availableTokens;
+                    waitNanos = (long) (missing / tokensPerMinute * TimeUnit.MINUTES.toNanos(1));
+                } else {
+                    inFlight++;
+                    availableTokens -= estimatedTokens;
+                    return;
+                }
+
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    throw new GenerationRejectedException(
+                            "OpenAI rate limit reached, please retry later",
+                            Math.max(1, TimeUnit.NANOSECONDS.toSeconds(Math.max(waitNanos, 0))));
+                }
+
+                changed.awaitNanos(Math.min(Math.min(waitNanos, remaining), MAX_WAIT_SLICE_NANOS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for OpenAI rate limiter", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    public void onSuccess(HttpHeaders headers) {
+        lock.lock();
+        try {
+            inFlight--;
+            concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+            applyProviderBudget(headers);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    public Duration onRateLimited(HttpHeaders headers) {
+        throttled.increment();
+
+        lock.lock();
+        try {
+            inFlight--;
+            concurrencyLimit = Math.max(minConcurrency, concurrencyLimit / 2);
+
+            Duration retryAfter = retryAfter(headers);
+            blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + retryAfter.toNanos());
+            applyProviderBudget(headers);
+
+            log.warn("OpenAI rate limited: concurrency limit lowered to {}, paused for {} ms",
+                    (int) concurrencyLimit, retryAfter.toMillis());
+
+            changed.signalAll();
+            return retryAfter;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    public void onFailure(boolean overloaded) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (overloaded) {
+                concurrencyLimit = Math.max(minConcurrency, concurrencyLimit * 0.9);
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    public Duration backoff(int attempt, Duration atLeast) {
+        long cap = Math.min(maxBackoff.toMillis(), baseBackoff.toMillis() << Math.min(attempt, 20));
+        long jittered = ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+        return Duration.ofMillis(Math.max(jittered, atLeast.toMillis()));
+    }
+
+
+    private void applyProviderBudget(HttpHeaders headers) {
+        if (headers == null) {
+            return;
+        }
+
+        String limitTokens = headers.getFirst("x-ratelimit-limit-tokens");
+        if (limitTokens != null) {
+            try {
+                double providerLimit = Double.parseDouble(limitTokens);
+                if (providerLimit > 0) {
+                    tokensPerMinute = providerLimit;
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        String remainingTokens = headers.getFirst("x-ratelimit-remaining-tokens");
+        if (remainingTokens != null) {
+            try {
+                availableTokens = Math.min(availableTokens, Double.parseDouble(remainingTokens));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        String remainingRequests = headers.getFirst("x-ratelimit-remaining-requests");
+        if ("0".equals(remainingRequests)) {
+            Duration reset = parseResetDuration(headers.getFirst("x-ratelimit-reset-requests"));
+            blockedUntilNanos = Math.max(blockedUntilNanos, System.nanoTime() + reset.toNanos());
+        }
+    }
+
+
+    private Duration retryAfter(HttpHeaders headers) {
+        if (headers != null) {
+            String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                try {
+                    return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+                } catch (NumberFormatException e) {
+                    try {
+                        ZonedDateTime at = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME);
+                        Duration untilThen = Duration.between(ZonedDateTime.now(), at);
+                        return untilThen.isNegative() ? Duration.ZERO : untilThen;
+                    } catch (Exception ignored) {
+                    }
+                }
+            }
+
+            Duration requestsReset = parseResetDuration(headers.getFirst("x-ratelimit-reset-requests"));
+            Duration tokensReset = parseResetDuration(headers.getFirst("x-ratelimit-reset-tokens"));
+            Duration reset = requestsReset.compareTo(tokensReset) > 0 ? requestsReset : tokensReset;
+            if (!reset.isZero()) {
+                return reset;
+            }
+        }
+        return baseBackoff;
+    }
+
+
+    static Duration parseResetDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return Duration.ZERO;
+        }
+
+        double millis = 0;
+        Matcher matcher = RESET_DURATION.matcher(value);
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1_000;
+                default -> amount;
+            };
+        }
+        return Duration.ofMillis((long) Math.ceil(millis));
+    }
+
+
+    private void refill(long now) {
+        double elapsedMinutes = (double) (now - lastRefillNanos) / TimeUnit.MINUTES.toNanos(1);
+        availableTokens = Math.min(tokensPerMinute, availableTokens + elapsedMinutes * tokensPerMinute);
+        lastRefillNanos = now;
+    }
+
+
+    private double read(DoubleSupplier supplier) {
+        lock.lock();
+        try {
+            return supplier.getAsDouble();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,44 +1,104 @@
 package com.github.yakupovdev.cms.service;
 
 import com.github.yakupovdev.cms.dto.PostRequestDTO;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.yakupovdev.cms.exception.CircuitOpenException;
+import com.github.yakupovdev.cms.exception.GenerationRejectedException;
+import com.github.yakupovdev.cms.service.ChatCompletionCodec.ChatCompletionRequest;
+import com.github.yakupovdev.cms.service.ImagePreprocessor.PreparedImage;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Base64;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class OpenAIService {
 
+    private static final String CHAT_COMPLETIONS_URL = "https://api.openai.com/v1/chat/completions";
+
+    private static final double TEMPERATURE = 0.85;
+    private static final double TOP_P = 0.95;
+    private static final double FREQUENCY_PENALTY = 0.3;
+    private static final double PRESENCE_PENALTY = 0.3;
+    private static final long MAX_IMAGE_BYTES = 20L * 1024 * 1024;
+    private static final int LOW_DETAIL_IMAGE_TOKENS = 85;
+    private static final int HIGH_DETAIL_IMAGE_TOKENS = 765;
+
     private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final ChatCompletionCodec codec;
+    private final GenerationCache generationCache;
+    private final ImagePreprocessor imagePreprocessor;
+    private final OpenAIRateLimiter rateLimiter;
+    private final OpenAICircuitBreaker circuitBreaker;
+    private final SingleFlight<String, String> inFlightRequests = new SingleFlight<>();
+    private final ExecutorService upstreamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Duration coalesceWaitTimeout;
+    private final int maxAttempts;
+    private final boolean fallbackEnabled;
+    private final String fallbackTemplate;
     private final String apiKey;
     private final String model;
 
     public OpenAIService(
             RestTemplate restTemplate,
-            ObjectMapper objectMapper,
+            ChatCompletionCodec codec,
+            GenerationCache generationCache,
+            ImagePreprocessor imagePreprocessor,
+            OpenAIRateLimiter rateLimiter,
+            OpenAICircuitBreaker circuitBreaker,
             @Value("${openai.api.key}") String apiKey,
-            @Value("${openai.model}") String model) {
+            @Value("${openai.model}") String model,
+            @Value("${openai.coalesce.wait-timeout:}") Duration coalesceWaitTimeout,
+            @Value("${openai.rate-limit.acquire-timeout:30s}") Duration acquireTimeout,
+            @Value("${openai.http.connection-request-timeout:5s}") Duration connectionRequestTimeout,
+            @Value("${openai.http.connect-timeout:10s}") Duration connectTimeout,
+            @Value("${openai.http.read-timeout:60s}") Duration readTimeout,
+            @Value("${openai.retry.max-backoff:20s}") Duration maxBackoff,
+            @Value("${openai.retry.max-attempts:3}") int maxAttempts,
+            @Value("${openai.fallback.enabled:true}") boolean fallbackEnabled,
+            @Value("${openai.fallback.template:{description}\n\n{hashtags}}") String fallbackTemplate) {
         this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+        this.codec = codec;
+        this.generationCache = generationCache;
+        this.imagePreprocessor = imagePreprocessor;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
         this.apiKey = apiKey;
         this.model = model;
+        this.maxAttempts = maxAttempts;
+        this.coalesceWaitTimeout = resolveCoalesceWaitTimeout(coalesceWaitTimeout,
+                acquireTimeout.plus(connectionRequestTimeout).plus(connectTimeout).plus(readTimeout),
+                maxBackoff);
+        this.fallbackEnabled = fallbackEnabled;
+        this.fallbackTemplate = fallbackTemplate;
         log.info("OpenAI Service initialized with model: {}", model);
     }
 
 
-    public String generatePostDescription(PostRequestDTO request) {
+    public GeneratedDescription generatePostDescription(PostRequestDTO request) {
         log.info("Generating post description with GPT-4o");
 
         boolean hasPhoto = request.getPhoto() != null && !request.getPhoto().isEmpty();
@@ -47,125 +107,406 @@ public class OpenAIService {
 
         try {
             String prompt = buildPrompt(request);
-            ObjectNode requestBody = buildRequestBody(prompt, request);
+            String cacheKey = buildCacheKey(prompt, request);
+
+            String cached = lookupCache(cacheKey, request);
+            if (cached != null) {
+                return new GeneratedDescription(cached, false);
+            }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(apiKey);
+            if (!circuitBreaker.isCallPermitted()) {
+                return new GeneratedDescription(fallbackDescription(request), true);
+            }
 
-            HttpEntity<String> httpEntity = new HttpEntity<>(
-                    requestBody.toString(),
-                    headers
-            );
+            if (inFlightRequests.isInFlight(cacheKey)) {
+                log.info("Identical request already in flight, waiting for shared result");
+            }
+
+            String content = inFlightRequests.execute(cacheKey, () -> {
+                ChatCompletionRequest completionRequest = buildCompletionRequest(prompt, request, false);
+                return CompletableFuture.supplyAsync(
+                        () -> requestCompletion(completionRequest, cacheKey),
+                        upstreamExecutor
+                );
+            }, coalesceWaitTimeout);
+            return new GeneratedDescription(content, false);
+
+        } catch (CircuitOpenException e) {
+            return new GeneratedDescription(fallbackDescription(request), true);
+        } catch (GenerationRejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error generating description: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to generate post description: " +
+                    e.getMessage(), e);
+        }
+    }
+
+
+    public GeneratedDescription streamPostDescription(PostRequestDTO request, Consumer<String> onToken) {
+        log.info("Streaming post description with GPT-4o");
+
+        try {
+            String prompt = buildPrompt(request);
+            String cacheKey = buildCacheKey(prompt, request);
+
+            String cached = lookupCache(cacheKey, request);
+            if (cached != null) {
+                onToken.accept(cached);
+                return new GeneratedDescription(cached, false);
+            }
 
-            log.debug("Sending request to OpenAI API...");
+            if (!circuitBreaker.isCallPermitted()) {
+                String fallback = fallbackDescription(request);
+                onToken.accept(fallback);
+                return new GeneratedDescription(fallback, true);
+            }
 
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                    "https://api.openai.com/v1/chat/completions",
-                    httpEntity,
-                    String.class
+            ChatCompletionRequest completionRequest = buildCompletionRequest(prompt, request, true);
+
+            log.debug("Sending streaming request to OpenAI API...");
+
+            AtomicBoolean emitted = new AtomicBoolean();
+            String content = executeGuarded(
+                    completionRequest,
+                    response -> readStreamedContent(response.getBody(), token -> {
+                        emitted.set(true);
+                        try {
+                            onToken.accept(token);
+                        } catch (RuntimeException e) {
+                            throw new TokenDeliveryException(e);
+                        }
+                    }),
+                    () -> !emitted.get()
             );
 
-            if (response.getStatusCode() == HttpStatus.OK) {
-                String content = extractContent(response.getBody());
-                log.info("Successfully generated description (length: {} chars)",
-                        content.length());
-                return content;
-            } else {
-                log.error("OpenAI API error: status={}, body={}",
-                        response.getStatusCode(), response.getBody());
-                throw new RuntimeException("OpenAI API returned status: " +
-                        response.getStatusCode());
+            if (content == null || content.isBlank()) {
+                throw new RuntimeException("OpenAI API returned an empty stream");
             }
 
+            log.info("Successfully streamed description (length: {} chars)", content.length());
+            generationCache.put(cacheKey, content.trim());
+            return new GeneratedDescription(content.trim(), false);
+
+        } catch (CircuitOpenException e) {
+            String fallback = fallbackDescription(request);
+            onToken.accept(fallback);
+            return new GeneratedDescription(fallback, true);
+        } catch (GenerationRejectedException e) {
+            throw e;
+        } catch (TokenDeliveryException e) {
+            log.info("Stream client went away, stopping generation: {}", e.getCause().getMessage());
+            throw e;
         } catch (Exception e) {
-            log.error("Error generating description: {}", e.getMessage(), e);
+            log.error("Error streaming description: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to generate post description: " +
                     e.getMessage(), e);
         }
     }
 
 
-    private ObjectNode buildRequestBody(String prompt, PostRequestDTO request)
-            throws Exception {
+    public long getRetryAfterSeconds() {
+        return circuitBreaker.getRetryAfterSeconds();
+    }
 
-        ObjectNode root = objectMapper.createObjectNode();
-        root.put("model", model);
-        root.put("temperature", 0.85);
-        root.put("max_tokens", getMaxTokensBySize(request.getSize()));
-        root.put("top_p", 0.95);
-        root.put("frequency_penalty", 0.3);
-        root.put("presence_penalty", 0.3);
 
-        ArrayNode messages = objectMapper.createArrayNode();
+    @PreDestroy
+    public void shutdown() {
+        upstreamExecutor.shutdown();
+    }
 
-        ObjectNode systemMessage = objectMapper.createObjectNode();
-        systemMessage.put("role", "system");
-        systemMessage.put("content", getSystemMessage());
-        messages.add(systemMessage);
 
-        ObjectNode userMessage = objectMapper.createObjectNode();
-        userMessage.put("role", "user");
-        if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
-            ArrayNode content = objectMapper.createArrayNode();
+    private Duration resolveCoalesceWaitTimeout(Duration configured, Duration attemptTimeout, Duration maxBackoff) {
+        Duration worstCase = attemptTimeout.multipliedBy(Math.max(1, maxAttempts))
+                .plus(maxBackoff.multipliedBy(Math.max(0, maxAttempts - 1)));
+
+        if (configured == null) {
+            return worstCase;
+        }
+        if (configured.compareTo(worstCase) < 0) {
+            log.warn("openai.coalesce.wait-timeout={} is shorter than a worst-case call ({}), using {}",
+                    configured, worstCase, worstCase);
+            return worstCase;
+        }
+        return configured;
+    }
+
+
+    private String requestCompletion(ChatCompletionRequest completionRequest, String cacheKey) {
+        log.debug("Sending request to OpenAI API...");
+
+        String content = executeGuarded(
+                completionRequest,
+                response -> codec.readMessageContent(response.getBody()),
+                () -> true
+        );
+
+        if (content == null) {
+            throw new RuntimeException("OpenAI API returned an empty response");
+        }
+
+        log.info("Successfully generated description (length: {} chars)", content.length());
+        generationCache.put(cacheKey, content);
+        return content;
+    }
+
+
+    private String executeGuarded(
+            ChatCompletionRequest completionRequest,
+            ResponseExtractor<String> extractor,
+            BooleanSupplier canRetry) {
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new CircuitOpenException("OpenAI is unavailable, please retry later",
+                    circuitBreaker.getRetryAfterSeconds());
+        }
+
+        long[] exchangeNanos = new long[1];
+        try {
+            String content = executeWithRetry(completionRequest, extractor, canRetry, exchangeNanos);
+            circuitBreaker.onSuccess(exchangeNanos[0]);
+            return content;
+        } catch (GenerationRejectedException | TokenDeliveryException | HttpClientErrorException e) {
+            circuitBreaker.onIgnored();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(exchangeNanos[0]);
+            throw e;
+        }
+    }
+
+
+    private String fallbackDescription(PostRequestDTO request) {
+        if (!fallbackEnabled) {
+            throw new CircuitOpenException("OpenAI is unavailable, please retry later",
+                    circuitBreaker.getRetryAfterSeconds());
+        }
+
+        log.warn("⚠️  OpenAI circuit is open, returning templated fallback description");
+
+        String description = request.getDescription() != null ? request.getDescription().trim() : "";
+        String hashtags = request.getHashtags() == null ? "" : request.getHashtags().stream()
+                .filter(tag -> tag != null && !tag.isBlank())
+                .map(tag -> tag.startsWith("#") ? tag : "#" + tag)
+                .collect(Collectors.joining(" "));
+
+        return fallbackTemplate
+                .replace("{description}", description)
+                .replace("{hashtags}", hashtags)
+                .trim();
+    }
 
-            ObjectNode textPart = objectMapper.createObjectNode();
-            textPart.put("type", "text");
-            textPart.put("text", prompt);
-            content.add(textPart);
 
-            ObjectNode imagePart = objectMapper.createObjectNode();
-            imagePart.put("type", "image_url");
+    private String executeWithRetry(
+            ChatCompletionRequest completionRequest,
+            ResponseExtractor<String> extractor,
+            BooleanSupplier canRetry,
+            long[] exchangeNanos) {
+
+        int estimatedTokens = estimateTokens(completionRequest);
+
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire(estimatedTokens);
+
+            Duration delay;
+            HttpHeaders[] responseHeaders = new HttpHeaders[1];
+            long exchangeStartedAt = System.nanoTime();
+            try {
+                String content;
+                try {
+                    content = restTemplate.execute(
+                            CHAT_COMPLETIONS_URL,
+                            HttpMethod.POST,
+                            httpRequest -> writeCompletionRequest(httpRequest, completionRequest),
+                            response -> {
+                                responseHeaders[0] = response.getHeaders();
+                                return extractor.extractData(response);
+                            }
+                    );
+                } finally {
+                    exchangeNanos[0] = System.nanoTime() - exchangeStartedAt;
+                }
+                rateLimiter.onSuccess(responseHeaders[0]);
+                return content;
+
+            } catch (HttpStatusCodeException e) {
+                if (e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    Duration retryAfter = rateLimiter.onRateLimited(e.getResponseHeaders());
+                    delay = rateLimiter.backoff(attempt, retryAfter);
+                } else if (e.getStatusCode().is5xxServerError()) {
+                    rateLimiter.onFailure(true);
+                    delay = rateLimiter.backoff(attempt, Duration.ZERO);
+                } else {
+                    rateLimiter.onFailure(false);
+                    log.error("OpenAI API error: status={}, body={}",
+                            e.getStatusCode(), e.getResponseBodyAsString());
+                    throw e;
+                }
+
+                if (attempt >= maxAttempts || !canRetry.getAsBoolean()) {
+                    log.error("OpenAI API error after {} attempts: status={}, body={}",
+                            attempt, e.getStatusCode(), e.getResponseBodyAsString());
+                    throw e;
+                }
+                log.warn("OpenAI API returned {}, retrying in {} ms (attempt {}/{})",
+                        e.getStatusCode(), delay.toMillis(), attempt, maxAttempts);
+
+            } catch (ResourceAccessException e) {
+                rateLimiter.onFailure(true);
+                if (attempt >= maxAttempts || !canRetry.getAsBoolean()) {
+                    throw e;
+                }
+                delay = rateLimiter.backoff(attempt, Duration.ZERO);
+                log.warn("OpenAI API I/O error: {}, retrying in {} ms (attempt {}/{})",
+                        e.getMessage(), delay.toMillis(), attempt, maxAttempts);
+
+            } catch (RuntimeException e) {
+                rateLimiter.onFailure(false);
+                throw e;
+            }
 
-            ObjectNode imageUrl = objectMapper.createObjectNode();
-            String base64Image = encodeImageToBase64(request.getPhoto());
-            String mimeType = request.getPhoto().getContentType();
-            if (mimeType == null || !mimeType.startsWith("image/")) {
-                mimeType = "image/jpeg";
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while backing off", e);
             }
-            imageUrl.put("url", "data:" + mimeType + ";base64," + base64Image);
+        }
+    }
+
+
+    private int estimateTokens(ChatCompletionRequest completionRequest) {
+        int promptTokens = (completionRequest.systemMessage().length()
+                + completionRequest.prompt().length()) / 4;
+
+        int imageTokens = 0;
+        if (completionRequest.image() != null) {
+            imageTokens = "low".equals(completionRequest.imageDetail())
+                    ? LOW_DETAIL_IMAGE_TOKENS
+                    : HIGH_DETAIL_IMAGE_TOKENS;
+        }
+
+        return promptTokens + imageTokens + completionRequest.maxTokens();
+    }
+
+
+    private void writeCompletionRequest(
+            ClientHttpRequest httpRequest,
+            ChatCompletionRequest completionRequest) throws IOException {
+
+        HttpHeaders headers = httpRequest.getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+        if (completionRequest.stream()) {
+            headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+        }
+
+        if (httpRequest instanceof StreamingHttpOutputMessage streamingRequest) {
+            streamingRequest.setBody(out -> codec.writeRequest(completionRequest, out));
+        } else {
+            codec.writeRequest(completionRequest, httpRequest.getBody());
+        }
+    }
 
-            imagePart.set("image_url", imageUrl);
-            content.add(imagePart);
 
-            userMessage.set("content", content);
+    private ChatCompletionRequest buildCompletionRequest(
+            String prompt,
+            PostRequestDTO request,
+            boolean stream) throws IOException {
 
-            log.info("✅ Image included in request for GPT-4o Vision analysis");
+        MultipartFile photo = request.getPhoto();
+        PreparedImage image = null;
 
+        if (photo != null && !photo.isEmpty()) {
+            if (photo.getSize() > MAX_IMAGE_BYTES) {
+                throw new RuntimeException("Image too large (max 20MB)");
+            }
+            log.debug("Encoding image: size={} bytes, type={}",
+                    photo.getSize(), photo.getContentType());
+            image = imagePreprocessor.prepare(photo, imagePreprocessor.resolveDetail(request));
+            log.info("✅ Image included in request for GPT-4o Vision analysis (detail: {})",
+                    image.detail());
         } else {
-            userMessage.put("content", prompt);
             log.info("ℹ️  Text-only request (no image)");
         }
 
-        messages.add(userMessage);
-        root.set("messages", messages);
+        return new ChatCompletionRequest(
+                model,
+                TEMPERATURE,
+                TOP_P,
+                FREQUENCY_PENALTY,
+                PRESENCE_PENALTY,
+                getMaxTokensBySize(request.getSize()),
+                stream,
+                getSystemMessage(),
+                prompt,
+                image != null ? image.source() : null,
+                image != null ? image.mimeType() : null,
+                image != null ? image.detail().name().toLowerCase() : null
+        );
+    }
+
 
-        return root;
+    private String buildCacheKey(String prompt, PostRequestDTO request) throws IOException {
+        MultipartFile photo = request.getPhoto();
+        boolean hasPhoto = photo != null && !photo.isEmpty();
+
+        return generationCache.keyFor(
+                model,
+                getSystemMessage(),
+                prompt,
+                String.valueOf(TEMPERATURE),
+                String.valueOf(TOP_P),
+                String.valueOf(FREQUENCY_PENALTY),
+                String.valueOf(PRESENCE_PENALTY),
+                String.valueOf(getMaxTokensBySize(request.getSize())),
+                hasPhoto ? photo.getContentType() : null,
+                hasPhoto ? imagePreprocessor.resolveDetail(request).name() : null,
+                generationCache.digestOf(photo)
+        );
     }
 
 
-    private String encodeImageToBase64(MultipartFile photo) throws Exception {
-        byte[] imageBytes = photo.getBytes();
+    private String lookupCache(String cacheKey, PostRequestDTO request) {
+        if (request.isBypassCache()) {
+            log.debug("Generation cache bypassed by request");
+            return null;
+        }
 
-        if (imageBytes.length > 20 * 1024 * 1024) {
-            throw new RuntimeException("Image too large (max 20MB)");
+        String cached = generationCache.get(cacheKey);
+        if (cached != null) {
+            log.info("Returning cached description (length: {} chars)", cached.length());
         }
+        return cached;
+    }
 
-        log.debug("Encoding image: size={} bytes, type={}",
-                imageBytes.length, photo.getContentType());
 
-        return Base64.getEncoder().encodeToString(imageBytes);
-    }
+    private String readStreamedContent(InputStream body, Consumer<String> onToken)
+            throws IOException {
 
+        StringBuilder content = new StringBuilder();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(body, StandardCharsets.UTF_8));
 
-    private String extractContent(String responseBody) throws Exception {
-        JsonNode root = objectMapper.readTree(responseBody);
-        return root.path("choices")
-                .get(0)
-                .path("message")
-                .path("content")
-                .asText()
-                .trim();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                break;
+            }
+
+            String delta = codec.readDeltaContent(data);
+            if (delta != null && !delta.isEmpty()) {
+                content.append(delta);
+                onToken.accept(delta);
+            }
+        }
+
+        return content.toString();
     }
 
 
@@ -251,4 +592,18 @@ public class OpenAIService {
             case LONG -> 1000;
         };
     }
-}
\ No newline at end of file
+
+
+    public record GeneratedDescription(String text, boolean fallback) {
+    }
+
+
+    private static final class TokenDeliveryException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private TokenDeliveryException(RuntimeException cause) {
+            super("Failed to deliver streamed token: " + cause.getMessage(), cause);
+        }
+    }
+}
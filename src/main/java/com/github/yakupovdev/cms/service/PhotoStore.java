@@ -0,0 +1,282 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.entity.PhotoBlob;
+import com.github.yakupovdev.cms.repository.PhotoBlobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+@Component
+@Slf4j
+public class PhotoStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_EXTENSION_LENGTH = 10;
+
+    public record StoredPhoto(String sha256, String path) {
+    }
+
+    public record PreparedPhoto(String sha256, Path source, Path path, long sizeBytes, boolean created) {
+    }
+
+    private final PhotoBlobRepository photoBlobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Path blobDirectory;
+    private final int sweepBatchSize;
+
+    public PhotoStore(
+            PhotoBlobRepository photoBlobRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${upload.directory}") String uploadDirectory,
+            @Value("${photos.blobs.sweep-batch-size:500}") int sweepBatchSize) {
+        this.photoBlobRepository = photoBlobRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blobDirectory = Paths.get(uploadDirectory, "blobs");
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+
+    public PreparedPhoto prepare(Path source) {
+        try {
+            String sha256 = sha256(source);
+            long sizeBytes = Files.size(source);
+
+            String existing = photoBlobRepository.findPathBySha256(sha256);
+            if (existing != null && Files.exists(Paths.get(existing))) {
+                return new PreparedPhoto(sha256, source, Paths.get(existing), sizeBytes, false);
+            }
+
+            Path target = blobPath(sha256, extension(source));
+            boolean created = materialize(source, target);
+            if (created) {
+                log.info("Photo blob stored: sha256={}, size={} bytes", sha256, sizeBytes);
+            }
+            return new PreparedPhoto(sha256, source, target, sizeBytes, created);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store photo: " + e.getMessage());
+        }
+    }
+
+
+    @Transactional
+    public StoredPhoto acquire(PreparedPhoto photo) {
+        photoBlobRepository.acquire(photo.sha256(), photo.path().toString(), photo.sizeBytes());
+        Path stored = Paths.get(photoBlobRepository.findPathBySha256(photo.sha256()));
+
+        if (photo.created()) {
+            removeUnlessCommitted(photo.sha256(), photo.path(), stored);
+        }
+
+        if (!Files.exists(stored)) {
+            try {
+                if (materialize(photo.source(), stored)) {
+                    removeUnlessCommitted(photo.sha256(), stored, stored);
+                }
+                log.info("Photo blob restored after a concurrent purge: sha256={}", photo.sha256());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to store photo: " + e.getMessage());
+            }
+        } else if (!photo.created()) {
+            log.info("Photo blob reused: sha256={}", photo.sha256());
+        }
+
+        return new StoredPhoto(photo.sha256(), stored.toString());
+    }
+
+
+    public void abandon(PreparedPhoto photo) {
+        if (photo != null && photo.created()) {
+            removeIfUnreferenced(photo.sha256(), photo.path());
+        }
+    }
+
+
+    @Transactional
+    public boolean release(String sha256) {
+        photoBlobRepository.release(sha256);
+        return photoBlobRepository.findUnreferencedForUpdate(sha256)
+                .map(blob -> {
+                    discard(blob);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+
+    public boolean isContentAddressed(Path path) {
+        return path.toAbsolutePath().normalize().startsWith(blobDirectory.toAbsolutePath().normalize());
+    }
+
+
+    @Scheduled(cron = "${photos.blobs.sweep-cron:0 15 4 * * *}")
+    public void sweep() {
+        int purged = 0;
+        List<String> unreferenced;
+        do {
+            unreferenced = photoBlobRepository.findUnreferenced(Limit.of(sweepBatchSize));
+            for (String sha256 : unreferenced) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                            photoBlobRepository.findUnreferencedForUpdate(sha256)
+                                    .map(blob -> {
+                                        discard(blob);
+                                        return true;
+                                    })
+                                    .orElse(false)))) {
+                        purged++;
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Failed to purge photo blob {}: {}", sha256, e.getMessage());
+                }
+            }
+        } while (unreferenced.size() == sweepBatchSize);
+
+        if (purged > 0) {
+            log.warn("Photo blob sweep removed {} unreferenced blobs", purged);
+        }
+    }
+
+
+    private void discard(PhotoBlob blob) {
+        photoBlobRepository.delete(blob);
+
+        Path stored = Paths.get(blob.getPath());
+        Path trash = stored.resolveSibling(stored.getFileName() + "." + UUID.randomUUID() + ".deleted");
+        try {
+            Files.move(stored, trash, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            log.warn("Photo blob {} was already missing from disk", blob.getSha256());
+            return;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete photo: " + e.getMessage());
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        Files.deleteIfExists(trash);
+                        log.info("Photo blob deleted: sha256={}", blob.getSha256());
+                    } else if (Files.exists(stored)) {
+                        Files.deleteIfExists(trash);
+                    } else {
+                        Files.move(trash, stored, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to finish removing photo blob {}: {}", blob.getSha256(), e.getMessage());
+                }
+            }
+        });
+    }
+
+
+    private void removeUnlessCommitted(String sha256, Path file, Path stored) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED || !file.equals(stored)) {
+                    removeIfUnreferenced(sha256, file);
+                }
+            }
+        });
+    }
+
+
+    private void removeIfUnreferenced(String sha256, Path file) {
+        try {
+            String referenced = newTransaction.execute(status -> photoBlobRepository.findPathBySha256(sha256));
+            if (!file.toString().equals(referenced) && Files.deleteIfExists(file)) {
+                log.info("Unreferenced photo blob file removed: {}", file);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to remove unreferenced photo blob {}: {}", file, e.getMessage());
+        }
+    }
+
+
+    private boolean materialize(Path source, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return false;
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("Hard link to {} failed, copying instead: {}", target, e.getMessage());
+        }
+
+        Path partial = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".part");
+        try {
+            Files.copy(source, partial);
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return true;
+    }
+
+
+    private Path blobPath(String sha256, String extension) {
+        return blobDirectory.resolve(sha256.substring(0, 2)).resolve(sha256 + extension);
+    }
+
+
+    private String extension(Path source) {
+        String filename = source.getFileName().toString();
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || filename.length() - dot > MAX_EXTENSION_LENGTH) {
+            return "";
+        }
+        return filename.substring(dot).toLowerCase(Locale.ROOT);
+    }
+
+
+    private String sha256(Path source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(source)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
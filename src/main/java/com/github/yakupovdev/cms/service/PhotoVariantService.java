@@ -0,0 +1,291 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class PhotoVariantService {
+
+    private static final int EXIF_SCAN_LIMIT = 128 * 1024;
+    private static final Pattern VARIANT_FILE = Pattern.compile(".+\\.w\\d+\\.jpg");
+
+    private final Path uploadDirectory;
+    private final List<Integer> widths;
+    private final Map<String, Integer> namedVariants;
+    private final float jpegQuality;
+    private final Duration generationTimeout;
+    private final Cache<Path, Long> variants;
+    private final Cache<Path, Path> servedAsOriginal;
+    private final SingleFlight<Path, Path> inFlightVariants = new SingleFlight<>();
+    private final ExecutorService generationExecutor;
+
+    public PhotoVariantService(
+            MeterRegistry meterRegistry,
+            @Value("${upload.directory}") String uploadDirectory,
+            @Value("${photos.variants.widths:160,320,640,1280}") List<Integer> widths,
+            @Value("${photos.variants.names:thumb=160,small=320,medium=640,large=1280}") List<String> names,
+            @Value("${photos.variants.jpeg-quality:0.82}") float jpegQuality,
+            @Value("${photos.variants.max-disk-size:1GB}") DataSize maxDiskSize,
+            @Value("${photos.variants.max-passthrough-entries:10000}") long maxPassthroughEntries,
+            @Value("${photos.variants.generation-threads:0}") int generationThreads,
+            @Value("${photos.variants.generation-timeout:30s}") Duration generationTimeout) {
+        this.uploadDirectory = Paths.get(uploadDirectory);
+        this.namedVariants = names.stream()
+                .map(name -> name.split("="))
+                .collect(Collectors.toMap(
+                        pair -> pair[0].trim().toLowerCase(Locale.ROOT),
+                        pair -> Integer.parseInt(pair[1].trim())));
+        this.widths = Stream.concat(widths.stream(), namedVariants.values().stream())
+                .sorted()
+                .distinct()
+                .toList();
+        this.jpegQuality = jpegQuality;
+        this.generationTimeout = generationTimeout;
+        this.generationExecutor = Executors.newFixedThreadPool(generationThreads > 0
+                ? generationThreads
+                : Runtime.getRuntime().availableProcessors());
+        this.variants = Caffeine.newBuilder()
+                .maximumWeight(maxDiskSize.toBytes())
+                .weigher((Path path, Long size) -> (int) Math.min(Integer.MAX_VALUE, size))
+                .evictionListener((Path path, Long size, RemovalCause cause) -> deleteQuietly(path))
+                .recordStats()
+                .build();
+        this.servedAsOriginal = Caffeine.newBuilder()
+                .maximumSize(maxPassthroughEntries)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, variants, "photos.variants");
+    }
+
+
+    public int resolveWidth(Integer width, String variant) {
+        if (variant != null && !variant.isBlank()) {
+            Integer named = namedVariants.get(variant.trim().toLowerCase(Locale.ROOT));
+            if (named == null) {
+                throw new RuntimeException("Unknown photo variant: " + variant);
+            }
+            return named;
+        }
+
+        if (width == null) {
+            return 0;
+        }
+        if (width <= 0) {
+            throw new RuntimeException("Photo width must be positive");
+        }
+
+        return widths.stream()
+                .filter(candidate -> candidate >= width)
+                .findFirst()
+                .orElse(widths.get(widths.size() - 1));
+    }
+
+
+    public Path resolve(Path original, int width) throws Exception {
+        if (width <= 0) {
+            return original;
+        }
+
+        Path variant = variantPath(original, width);
+        if (variants.getIfPresent(variant) != null && Files.exists(variant)) {
+            return variant;
+        }
+        if (servedAsOriginal.getIfPresent(variant) != null) {
+            return original;
+        }
+
+        if (inFlightVariants.isInFlight(variant)) {
+            log.debug("Variant {} already being generated, waiting for it", variant.getFileName());
+        }
+
+        return inFlightVariants.execute(variant, () -> CompletableFuture.supplyAsync(
+                () -> generate(original, variant, width), generationExecutor), generationTimeout);
+    }
+
+
+    public void deleteVariantsAfterCommit(String photoPath) {
+        Path original = Paths.get(photoPath);
+
+        Runnable delete = () -> widths.forEach(width -> {
+            Path variant = variantPath(original, width);
+            variants.invalidate(variant);
+            servedAsOriginal.invalidate(variant);
+            deleteQuietly(variant);
+        });
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delete.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delete.run();
+            }
+        });
+    }
+
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadExistingVariants() {
+        if (!Files.isDirectory(uploadDirectory)) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        try (Stream<Path> files = Files.walk(uploadDirectory)) {
+            files.filter(path -> VARIANT_FILE.matcher(path.getFileName().toString()).matches())
+                    .map(Path::toFile)
+                    .sorted(Comparator.comparingLong(File::lastModified))
+                    .forEach(file -> variants.put(file.toPath(), file.length()));
+        } catch (IOException e) {
+            log.warn("Failed to scan existing photo variants: {}", e.getMessage());
+            return;
+        }
+
+        log.info("Loaded {} existing photo variants in {} ms",
+                variants.estimatedSize(), System.currentTimeMillis() - startedAt);
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        generationExecutor.shutdown();
+    }
+
+
+    private Path generate(Path original, Path variant, int width) {
+        if (Files.exists(variant)) {
+            register(variant);
+            return variant;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        int orientation;
+        int displayedWidth;
+        BufferedImage source;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(original), EXIF_SCAN_LIMIT)) {
+            in.mark(EXIF_SCAN_LIMIT);
+            orientation = ExifOrientation.read(in, EXIF_SCAN_LIMIT);
+            in.reset();
+
+            try (ImageInputStream images = ImageIO.createImageInputStream(in)) {
+                Iterator<ImageReader> readers = images == null
+                        ? Collections.emptyIterator()
+                        : ImageIO.getImageReaders(images);
+                if (!readers.hasNext()) {
+                    log.debug("Photo {} is not decodable, serving the original", original.getFileName());
+                    servedAsOriginal.put(variant, original);
+                    return original;
+                }
+
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(images, true, true);
+                    boolean swapsAxes = orientation >= 5 && orientation <= 8;
+                    displayedWidth = swapsAxes ? reader.getHeight(0) : reader.getWidth(0);
+
+                    if (width >= displayedWidth && orientation == 1) {
+                        servedAsOriginal.put(variant, original);
+                        return original;
+                    }
+
+                    source = reader.read(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Failed to read photo: " + e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Photo {} could not be decoded, serving the original: {}", original.getFileName(), e.getMessage());
+            servedAsOriginal.put(variant, original);
+            return original;
+        }
+
+        double scale = Math.min(1.0, (double) width / displayedWidth);
+        Path partial = variant.resolveSibling(variant.getFileName() + "." + UUID.randomUUID() + ".part");
+        try {
+            byte[] encoded = ImagePreprocessor.encodeJpeg(
+                    ImagePreprocessor.transform(source, scale, orientation), jpegQuality);
+            Files.write(partial, encoded);
+            Files.move(partial, variant, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            log.info("Photo variant generated: {} at {}px, {} bytes in {} ms",
+                    original.getFileName(), width, encoded.length, System.currentTimeMillis() - startedAt);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw new RuntimeException("Failed to generate photo variant: " + e.getMessage());
+        }
+
+        register(variant);
+        return variant;
+    }
+
+
+    private void register(Path variant) {
+        try {
+            variants.put(variant, Files.size(variant));
+        } catch (IOException e) {
+            log.warn("Failed to size photo variant {}: {}", variant, e.getMessage());
+        }
+    }
+
+
+    private Path variantPath(Path original, int width) {
+        String filename = original.getFileName().toString();
+        int dot = filename.lastIndexOf('.');
+        String base = dot > 0 ? filename.substring(0, dot) : filename;
+        return original.resolveSibling(base + ".w" + width + ".jpg");
+    }
+
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete photo variant {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.yakupovdev.cms.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.yakupovdev.cms.dto.PostExportDTO;
+import com.github.yakupovdev.cms.entity.Post;
+import com.github.yakupovdev.cms.repository.PostPhotoView;
+import com.github.yakupovdev.cms.repository.PostRepository;
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+@Slf4j
+public class PostExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String POSTS_ENTRY = "posts.ndjson";
+
+    private final PostRepository postRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int pageSize;
+
+    public PostExportService(
+            PostRepository postRepository,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${posts.export.page-size:1000}") int pageSize) {
+        this.postRepository = postRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+
+    public void exportNdjson(AuthenticatedUser user, boolean gzip, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+
+        OutputStream target = gzip
+                ? new GZIPOutputStream(out, BUFFER_SIZE)
+                : new BufferedOutputStream(out, BUFFER_SIZE);
+
+        long exported = writePosts(user.id(), target, false);
+
+        if (target instanceof GZIPOutputStream gzipOutput) {
+            gzipOutput.finish();
+        }
+        target.flush();
+
+        log.info("Exported {} posts for user {} in {} ms",
+                exported, user.username(), System.currentTimeMillis() - startedAt);
+    }
+
+
+    public void exportZip(AuthenticatedUser user, OutputStream out) throws IOException {
+        long startedAt = System.currentTimeMillis();
+
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+
+        zip.putNextEntry(new ZipEntry(POSTS_ENTRY));
+        long posts = writePosts(user.id(), zip, true);
+        zip.closeEntry();
+
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        long photos = writePhotos(user.id(), zip);
+
+        zip.finish();
+        zip.flush();
+
+        log.info("Exported {} posts and {} photos for user {} as ZIP in {} ms",
+                posts, photos, user.username(), System.currentTimeMillis() - startedAt);
+    }
+
+
+    private long writePosts(Long userId, OutputStream out, boolean bundlePhotos) throws IOException {
+        long exported = 0;
+        List<PostExportDTO> page = readPostPage(userId, null, bundlePhotos);
+
+        while (!page.isEmpty()) {
+            for (PostExportDTO post : page) {
+                out.write(objectMapper.writeValueAsBytes(post));
+                out.write('\n');
+            }
+            exported += page.size();
+
+            if (page.size() < pageSize) {
+                break;
+            }
+
+            page = readPostPage(userId, page.get(page.size() - 1), bundlePhotos);
+        }
+
+        return exported;
+    }
+
+
+    private List<PostExportDTO> readPostPage(Long userId, PostExportDTO after, boolean bundlePhotos) {
+        return readOnlyTransaction.execute(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+
+            List<Post> posts = after == null
+                    ? postRepository.findFirstExportPage(userId, Limit.of(pageSize))
+                    : postRepository.findExportPageAfter(userId, after.getCreatedAt(), after.getId(), Limit.of(pageSize));
+
+            return posts.stream()
+                    .map(post -> toExport(post, bundlePhotos))
+                    .toList();
+        });
+    }
+
+
+    private long writePhotos(Long userId, ZipOutputStream zip) throws IOException {
+        long written = 0;
+        List<PostPhotoView> page = readOnlyTransaction.execute(status ->
+                postRepository.findFirstPhotoPage(userId, Limit.of(pageSize)));
+
+        while (!page.isEmpty()) {
+            for (PostPhotoView photo : page) {
+                Path path = Paths.get(photo.getPhotoPath());
+
+                if (!Files.isReadable(path)) {
+                    log.warn("Skipping missing photo for post {}: {}", photo.getId(), photo.getPhotoPath());
+                    continue;
+                }
+
+                zip.putNextEntry(new ZipEntry(photoEntryName(photo.getId(), photo.getPhotoPath())));
+                Files.copy(path, zip);
+                zip.closeEntry();
+                written++;
+            }
+
+            if (page.size() < pageSize) {
+                break;
+            }
+
+            PostPhotoView last = page.get(page.size() - 1);
+            page = readOnlyTransaction.execute(status -> postRepository.findPhotoPageAfter(
+                    userId, last.getCreatedAt(), last.getId(), Limit.of(pageSize)));
+        }
+
+        return written;
+    }
+
+
+    private PostExportDTO toExport(Post post, boolean bundlePhotos) {
+        boolean hasPhoto = post.getPhotoPath() != null && !post.getPhotoPath().isEmpty();
+
+        return PostExportDTO.builder()
+                .id(post.getId())
+                .originalDescription(post.getOriginalDescription())
+                .generatedDescription(post.getGeneratedDescription())
+                .hashtags(post.getHashtags())
+                .size(post.getSize())
+                .photo(bundlePhotos && hasPhoto ? photoEntryName(post.getId(), post.getPhotoPath()) : null)
+                .createdAt(post.getCreatedAt())
+                .build();
+    }
+
+
+    private String photoEntryName(Long postId, String photoPath) {
+        return "photos/" + postId + "-" + Paths.get(photoPath).getFileName();
+    }
+}
@@ -0,0 +1,410 @@
+package com.github.yakupovdev.cms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.yakupovdev.cms.config.ReadYourWritesGuard;
+import com.github.yakupovdev.cms.dto.PostImportResultDTO;
+import com.github.yakupovdev.cms.entity.Post;
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class PostImportService {
+
+    private static final Set<String> SIZES = Set.of("SHORT", "MEDIUM", "LONG");
+    private static final int MAX_HASHTAGS_LENGTH = 500;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PostStatsService postStatsService;
+    private final PostSearchIndex postSearchIndex;
+    private final HashtagService hashtagService;
+    private final ReadYourWritesGuard readYourWritesGuard;
+    private final ObjectMapper objectMapper;
+    private final int flushSize;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public PostImportService(
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            PostStatsService postStatsService,
+            PostSearchIndex postSearchIndex,
+            HashtagService hashtagService,
+            ReadYourWritesGuard readYourWritesGuard,
+            ObjectMapper objectMapper,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int flushSize,
+            @Value("${posts.import.chunk-size:1000}") int chunkSize,
+            @Value("${posts.import.max-errors:20}") int maxErrors) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.postStatsService = postStatsService;
+        this.postSearchIndex = postSearchIndex;
+        this.hashtagService = hashtagService;
+        this.readYourWritesGuard = readYourWritesGuard;
+        this.objectMapper = objectMapper;
+        this.flushSize = flushSize;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+
+    public PostImportResultDTO importPosts(MultipartFile file, AuthenticatedUser user) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("Import file is required");
+        }
+
+        boolean csv = isCsv(file);
+        log.info("Importing {} posts from {} for user: {}",
+                csv ? "CSV" : "NDJSON", file.getOriginalFilename(), user.username());
+
+        long startedAt = System.nanoTime();
+        List<Post> chunk = new ArrayList<>(chunkSize);
+        List<String> errors = new ArrayList<>();
+        int imported = 0;
+        int rejected = 0;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+
+            RowReader rows = csv ? new CsvRowReader(reader) : new NdjsonRowReader(reader, objectMapper);
+
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                try {
+                    chunk.add(toPost(row, user.id()));
+                } catch (RuntimeException e) {
+                    rejected++;
+                    if (errors.size() < maxErrors) {
+                        errors.add("Line " + row.line() + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+
+                if (chunk.size() == chunkSize) {
+                    persistChunk(chunk);
+                    imported += chunk.size();
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                persistChunk(chunk);
+                imported += chunk.size();
+                chunk.clear();
+            }
+        } catch (IOException e) {
+            log.error("Failed to read import file: {}", e.getMessage());
+            throw new RuntimeException("Failed to read import file: " + e.getMessage());
+        } finally {
+            if (imported > 0) {
+                postStatsService.rebuild(user.id());
+                postSearchIndex.invalidate(user.id());
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - startedAt;
+        long rowsPerSecond = elapsedNanos == 0 ? imported : imported * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+
+        log.info("Imported {} posts ({} rejected) for user {} in {} ms, {} rows/s",
+                imported, rejected, user.username(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond);
+
+        return PostImportResultDTO.builder()
+                .imported(imported)
+                .rejected(rejected)
+                .errors(errors)
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .rowsPerSecond(rowsPerSecond)
+                .build();
+    }
+
+
+    private void persistChunk(List<Post> posts) {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+
+            for (int i = 0; i < posts.size(); i++) {
+                entityManager.persist(posts.get(i));
+                if ((i + 1) % flushSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+
+            entityManager.flush();
+            entityManager.clear();
+            hashtagService.recordCreated(posts);
+            readYourWritesGuard.pinAfterCommit(posts.get(0).getUserId());
+        });
+    }
+
+
+    private Post toPost(ImportRow row, Long userId) {
+        if (row.error() != null) {
+            throw new RuntimeException(row.error());
+        }
+
+        Map<String, String> fields = row.fields();
+
+        String generatedDescription = fields.get("generateddescription");
+        if (generatedDescription == null || generatedDescription.isBlank()) {
+            throw new RuntimeException("generatedDescription is required");
+        }
+
+        String size = fields.get("size");
+        size = size == null || size.isBlank() ? "MEDIUM" : size.trim().toUpperCase(Locale.ROOT);
+        if (!SIZES.contains(size)) {
+            throw new RuntimeException("Unknown size: " + fields.get("size"));
+        }
+
+        String hashtags = formatHashtags(fields.get("hashtags"));
+        if (hashtags.length() > MAX_HASHTAGS_LENGTH) {
+            throw new RuntimeException("hashtags longer than " + MAX_HASHTAGS_LENGTH + " characters");
+        }
+
+        String originalDescription = fields.get("originaldescription");
+
+        return Post.builder()
+                .userId(userId)
+                .originalDescription(originalDescription == null || originalDescription.isBlank() ? null : originalDescription)
+                .generatedDescription(generatedDescription)
+                .hashtags(hashtags)
+                .size(size)
+                .createdAt(parseCreatedAt(fields.get("createdat")))
+                .build();
+    }
+
+
+    private String formatHashtags(String hashtags) {
+        if (hashtags == null || hashtags.isBlank()) {
+            return "";
+        }
+
+        return Arrays.stream(hashtags.trim().split("[\\s,]+"))
+                .filter(tag -> !tag.isEmpty() && !tag.equals("#"))
+                .map(tag -> tag.startsWith("#") ? tag : "#" + tag)
+                .collect(Collectors.joining(" "));
+    }
+
+
+    private LocalDateTime parseCreatedAt(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+
+        try {
+            return LocalDateTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(value.trim())
+                        .atZoneSameInstant(ZoneId.systemDefault())
+                        .toLocalDateTime();
+            } catch (DateTimeParseException ignored) {
+                throw new RuntimeException("Invalid createdAt: " + value);
+            }
+        }
+    }
+
+
+    private boolean isCsv(MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        if (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return true;
+        }
+
+        String contentType = file.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv");
+    }
+
+
+    private static String normalizeKey(String key) {
+        return key.replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+
+    private record ImportRow(long line, Map<String, String> fields, String error) {
+    }
+
+
+    private interface RowReader {
+
+        ImportRow next() throws IOException;
+    }
+
+
+    private static final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private long line;
+
+        NdjsonRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+            this.reader = reader;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String current;
+            while ((current = reader.readLine()) != null) {
+                line++;
+                if (!current.isBlank()) {
+                    return parse(current);
+                }
+            }
+            return null;
+        }
+
+        private ImportRow parse(String json) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(json);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(line, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+
+            if (!node.isObject()) {
+                return new ImportRow(line, null, "Expected a JSON object");
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> entries = node.fields();
+            while (entries.hasNext()) {
+                Map.Entry<String, JsonNode> entry = entries.next();
+                JsonNode value = entry.getValue();
+                if (value.isNull()) {
+                    continue;
+                }
+
+                String text;
+                if (value.isArray()) {
+                    List<String> items = new ArrayList<>();
+                    value.forEach(item -> items.add(item.asText()));
+                    text = String.join(" ", items);
+                } else {
+                    text = value.asText();
+                }
+                fields.put(normalizeKey(entry.getKey()), text);
+            }
+
+            return new ImportRow(line, fields, null);
+        }
+    }
+
+
+    private static final class CsvRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private final List<String> header;
+        private long line;
+
+        CsvRowReader(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> columns = readRecord();
+            this.header = columns == null
+                    ? List.of()
+                    : columns.stream().map(PostImportService::normalizeKey).toList();
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            while (true) {
+                long startLine = line + 1;
+                List<String> values = readRecord();
+                if (values == null) {
+                    return null;
+                }
+                if (values.size() == 1 && values.get(0).isBlank()) {
+                    continue;
+                }
+                if (values.size() != header.size()) {
+                    return new ImportRow(startLine, null,
+                            "Expected " + header.size() + " columns but found " + values.size());
+                }
+
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    fields.put(header.get(i), values.get(i));
+                }
+                return new ImportRow(startLine, fields, null);
+            }
+        }
+
+        private List<String> readRecord() throws IOException {
+            String current = reader.readLine();
+            if (current == null) {
+                return null;
+            }
+            line++;
+
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+
+            while (true) {
+                if (i == current.length()) {
+                    if (quoted) {
+                        String continuation = reader.readLine();
+                        if (continuation != null) {
+                            line++;
+                            field.append('\n');
+                            current = continuation;
+                            i = 0;
+                            continue;
+                        }
+                    }
+                    values.add(field.toString());
+                    return values;
+                }
+
+                char c = current.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < current.length() && current.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.yakupovdev.cms.entity.Post;
+import com.github.yakupovdev.cms.repository.PostRepository;
+import com.github.yakupovdev.cms.repository.PostTextView;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class PostSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_MATCH_WEIGHT = 0.8;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    public record Hit(Long postId, double score) {
+    }
+
+    public record SearchResult(int total, List<Hit> hits) {
+    }
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LoadingCache<Long, UserIndex> shards;
+    private final int prefixMinLength;
+    private final int maxExpansions;
+
+    public PostSearchIndex(
+            PostRepository postRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${posts.search.index.max-documents:2000000}") long maxDocuments,
+            @Value("${posts.search.index.expire-after-access:30m}") Duration expireAfterAccess,
+            @Value("${posts.search.prefix-min-length:2}") int prefixMinLength,
+            @Value("${posts.search.max-expansions:64}") int maxExpansions) {
+        this.postRepository = postRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.prefixMinLength = prefixMinLength;
+        this.maxExpansions = maxExpansions;
+        this.shards = Caffeine.newBuilder()
+                .maximumWeight(maxDocuments)
+                .weigher((Long userId, UserIndex index) -> Math.max(1, index.documentCount()))
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build(this::build);
+        CaffeineCacheMetrics.monitor(meterRegistry, shards, "posts.search.index");
+    }
+
+
+    public SearchResult search(Long userId, String query, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return new SearchResult(0, List.of());
+        }
+
+        return shards.get(userId).search(terms, limit);
+    }
+
+
+    public void indexAfterCommit(Post post) {
+        afterCommit(() -> shards.asMap().computeIfPresent(post.getUserId(), (userId, index) -> {
+            index.add(post.getId(), post.getOriginalDescription(), post.getGeneratedDescription(), post.getHashtags());
+            return index;
+        }));
+    }
+
+
+    public void removeAfterCommit(Post post) {
+        afterCommit(() -> shards.asMap().computeIfPresent(post.getUserId(), (userId, index) -> {
+            index.remove(post.getId());
+            return index;
+        }));
+    }
+
+
+    public void invalidate(Long userId) {
+        shards.invalidate(userId);
+    }
+
+
+    private UserIndex build(Long userId) {
+        long startedAt = System.currentTimeMillis();
+        UserIndex index = new UserIndex();
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<PostTextView> posts = postRepository.streamTextByUserId(userId)) {
+                posts.forEach(post -> index.add(
+                        post.getId(), post.getOriginalDescription(), post.getGeneratedDescription(), post.getHashtags()));
+            }
+        });
+
+        log.info("Search index for user {} built with {} posts and {} terms in {} ms",
+                userId, index.documentCount(), index.termCount(), System.currentTimeMillis() - startedAt);
+        return index;
+    }
+
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String normalized = isAscii(text)
+                ? text.toLowerCase(Locale.ROOT)
+                : DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                        .replaceAll("")
+                        .toLowerCase(Locale.ROOT);
+
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private final class UserIndex {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final TreeMap<String, PostingList> postings = new TreeMap<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final List<Long> postIds = new ArrayList<>();
+        private final List<String[]> documentTerms = new ArrayList<>();
+        private int[] documentLengths = new int[64];
+        private long totalLength;
+        private int liveDocuments;
+
+        int documentCount() {
+            return liveDocuments;
+        }
+
+        int termCount() {
+            lock.readLock().lock();
+            try {
+                return postings.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void add(Long postId, String originalDescription, String generatedDescription, String hashtags) {
+            List<String> tokens = new ArrayList<>();
+            tokens.addAll(tokenize(originalDescription));
+            tokens.addAll(tokenize(generatedDescription));
+            tokens.addAll(tokenize(hashtags));
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : tokens) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+
+            lock.writeLock().lock();
+            try {
+                removeLocked(postId);
+
+                int ordinal = postIds.size();
+                postIds.add(postId);
+                ordinals.put(postId, ordinal);
+
+                String[] terms = new String[frequencies.size()];
+                int i = 0;
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    PostingList list = postings.computeIfAbsent(entry.getKey(), PostingList::new);
+                    list.append(ordinal, entry.getValue());
+                    terms[i++] = list.term;
+                }
+                documentTerms.add(terms);
+
+                if (ordinal == documentLengths.length) {
+                    documentLengths = Arrays.copyOf(documentLengths, ordinal * 2);
+                }
+                documentLengths[ordinal] = tokens.size();
+                totalLength += tokens.size();
+                liveDocuments++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long postId) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(postId);
+                if (postIds.size() > 64 && liveDocuments < postIds.size() / 2) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long postId) {
+            Integer ordinal = ordinals.remove(postId);
+            if (ordinal == null) {
+                return;
+            }
+
+            for (String term : documentTerms.get(ordinal)) {
+                PostingList list = postings.get(term);
+                if (--list.documentFrequency == 0) {
+                    postings.remove(term);
+                }
+            }
+
+            postIds.set(ordinal, null);
+            documentTerms.set(ordinal, null);
+            totalLength -= documentLengths[ordinal];
+            liveDocuments--;
+        }
+
+        private void compact() {
+            int[] remap = new int[postIds.size()];
+            List<Long> livePostIds = new ArrayList<>(liveDocuments);
+            List<String[]> liveTerms = new ArrayList<>(liveDocuments);
+            int[] liveLengths = new int[Math.max(64, liveDocuments)];
+
+            for (int ordinal = 0; ordinal < postIds.size(); ordinal++) {
+                Long postId = postIds.get(ordinal);
+                if (postId == null) {
+                    remap[ordinal] = -1;
+                    continue;
+                }
+                int next = livePostIds.size();
+                remap[ordinal] = next;
+                livePostIds.add(postId);
+                liveTerms.add(documentTerms.get(ordinal));
+                liveLengths[next] = documentLengths[ordinal];
+                ordinals.put(postId, next);
+            }
+
+            postings.values().forEach(list -> list.remap(remap));
+            postIds.clear();
+            postIds.addAll(livePostIds);
+            documentTerms.clear();
+            documentTerms.addAll(liveTerms);
+            documentLengths = liveLengths;
+        }
+
+        SearchResult search(List<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                int documents = postIds.size();
+                if (liveDocuments == 0) {
+                    return new SearchResult(0, List.of());
+                }
+
+                double averageLength = (double) totalLength / liveDocuments;
+                double[] scores = new double[documents];
+                int[] matchedTerms = new int[documents];
+
+                for (int t = 0; t < terms.size(); t++) {
+                    String term = terms.get(t);
+                    boolean matchedAny = false;
+
+                    for (Map.Entry<String, PostingList> expansion : expansions(term).entrySet()) {
+                        PostingList list = expansion.getValue();
+                        double weight = expansion.getKey().equals(term) ? 1.0 : PREFIX_MATCH_WEIGHT;
+                        double idf = Math.log(1 + (liveDocuments - list.documentFrequency + 0.5)
+                                / (list.documentFrequency + 0.5));
+
+                        for (int i = 0; i < list.size; i++) {
+                            int ordinal = list.documents[i];
+                            if (postIds.get(ordinal) == null || matchedTerms[ordinal] < t) {
+                                continue;
+                            }
+
+                            int frequency = list.frequencies[i];
+                            double norm = K1 * (1 - B + B * documentLengths[ordinal] / averageLength);
+                            scores[ordinal] += weight * idf * frequency * (K1 + 1) / (frequency + norm);
+                            matchedTerms[ordinal] = t + 1;
+                            matchedAny = true;
+                        }
+                    }
+
+                    if (!matchedAny) {
+                        return new SearchResult(0, List.of());
+                    }
+                }
+
+                PriorityQueue<Hit> top = new PriorityQueue<>(
+                        (a, b) -> Double.compare(a.score(), b.score()) != 0
+                                ? Double.compare(a.score(), b.score())
+                                : Long.compare(a.postId(), b.postId()));
+                int total = 0;
+
+                for (int ordinal = 0; ordinal < documents; ordinal++) {
+                    if (matchedTerms[ordinal] != terms.size()) {
+                        continue;
+                    }
+                    total++;
+                    top.offer(new Hit(postIds.get(ordinal), scores[ordinal]));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+
+                List<Hit> hits = new ArrayList<>(top);
+                hits.sort((a, b) -> Double.compare(b.score(), a.score()) != 0
+                        ? Double.compare(b.score(), a.score())
+                        : Long.compare(b.postId(), a.postId()));
+                return new SearchResult(total, hits);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private Map<String, PostingList> expansions(String term) {
+            if (term.length() < prefixMinLength) {
+                PostingList exact = postings.get(term);
+                return exact == null ? Map.of() : Map.of(term, exact);
+            }
+
+            NavigableMap<String, PostingList> matches = postings.subMap(term, true, term + Character.MAX_VALUE, false);
+            if (matches.size() <= maxExpansions) {
+                return matches;
+            }
+
+            Map<String, PostingList> limited = new LinkedHashMap<>();
+            PostingList exact = postings.get(term);
+            if (exact != null) {
+                limited.put(term, exact);
+            }
+            matches.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals(term))
+                    .sorted((a, b) -> Integer.compare(b.getValue().documentFrequency, a.getValue().documentFrequency))
+                    .limit(maxExpansions - limited.size())
+                    .forEach(entry -> limited.put(entry.getKey(), entry.getValue()));
+            return limited;
+        }
+    }
+
+
+    private static final class PostingList {
+
+        private final String term;
+        private int[] documents = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        private int documentFrequency;
+
+        PostingList(String term) {
+            this.term = term;
+        }
+
+        void append(int ordinal, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            documentFrequency++;
+        }
+
+        void remap(int[] remap) {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = remap[documents[i]];
+                if (ordinal >= 0) {
+                    documents[live] = ordinal;
+                    frequencies[live] = frequencies[i];
+                    live++;
+                }
+            }
+            size = live;
+        }
+    }
+}
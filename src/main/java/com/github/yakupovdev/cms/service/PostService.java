@@ -1,24 +1,35 @@
 package com.github.yakupovdev.cms.service;
 
+import com.github.yakupovdev.cms.config.ReadYourWritesGuard;
 import com.github.yakupovdev.cms.dto.*;
 import com.github.yakupovdev.cms.entity.Post;
-import com.github.yakupovdev.cms.entity.User;
+import com.github.yakupovdev.cms.exception.CircuitOpenException;
 import com.github.yakupovdev.cms.repository.PostRepository;
-import com.github.yakupovdev.cms.repository.UserRepository;
+import com.github.yakupovdev.cms.repository.PostSummaryView;
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
+import com.github.yakupovdev.cms.service.OpenAIService.GeneratedDescription;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,36 +39,102 @@ public class PostService {
 
     private final OpenAIService openAIService;
     private final PostRepository postRepository;
-    private final UserRepository userRepository;
-
-    @Value("${upload.directory}")
-    private String uploadDirectory;
+    private final PostStatsService postStatsService;
+    private final PostSearchIndex postSearchIndex;
+    private final HashtagService hashtagService;
+    private final PhotoStore photoStore;
+    private final PhotoVariantService photoVariantService;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadYourWritesGuard readYourWritesGuard;
 
     @Value("${upload.temp.directory}")
     private String tempUploadDirectory;
 
+    @Value("${posts.page.default-size:20}")
+    private int defaultPageSize;
 
-    public GeneratedPostDTO generatePost(PostRequestDTO request, String username) {
-        log.info("Generating post (without saving) for user: {}", username);
+    @Value("${posts.page.max-size:100}")
+    private int maxPageSize;
 
-        String tempPhotoPath = null;
-        if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
-            try {
-                tempPhotoPath = saveTempPhoto(request.getPhoto());
-                log.info("Photo saved to temp: {}", tempPhotoPath);
-            } catch (IOException e) {
-                log.error("Failed to save temp photo: {}", e.getMessage());
-                throw new RuntimeException("Failed to save photo: " + e.getMessage());
-            }
+    @Value("${posts.preview.length:200}")
+    private int previewLength;
+
+
+    public GeneratedPostDTO generatePost(PostRequestDTO request, AuthenticatedUser user) {
+        log.info("Generating post (without saving) for user: {}", user.username());
+
+        String tempPhotoPath = storeTempPhoto(request);
+
+        return generateWithTempPhoto(request, tempPhotoPath);
+    }
+
+
+    public String storeTempPhoto(PostRequestDTO request) {
+        if (request.getPhoto() == null || request.getPhoto().isEmpty()) {
+            return null;
+        }
+
+        try {
+            String tempPhotoPath = saveTempPhoto(request.getPhoto());
+            log.info("Photo saved to temp: {}", tempPhotoPath);
+            return tempPhotoPath;
+        } catch (IOException e) {
+            log.error("Failed to save temp photo: {}", e.getMessage());
+            throw new RuntimeException("Failed to save photo: " + e.getMessage());
+        }
+    }
+
+
+    public PostRequestDTO detachRequest(PostRequestDTO request, String tempPhotoPath) {
+        PostRequestDTO detached = new PostRequestDTO();
+        detached.setDescription(request.getDescription());
+        detached.setHashtags(request.getHashtags());
+        detached.setSize(request.getSize());
+        detached.setBypassCache(request.isBypassCache());
+        detached.setImageDetail(request.getImageDetail());
+
+        if (tempPhotoPath != null) {
+            detached.setPhoto(new StoredPhotoFile(
+                    Paths.get(tempPhotoPath),
+                    request.getPhoto().getOriginalFilename(),
+                    request.getPhoto().getContentType()
+            ));
         }
 
-        String generatedDescription = openAIService.generatePostDescription(request);
+        return detached;
+    }
+
+
+    public GeneratedPostDTO generateWithTempPhoto(PostRequestDTO request, String tempPhotoPath) {
+        GeneratedDescription generatedDescription = openAIService.generatePostDescription(request);
         log.info("Description generated successfully");
 
+        return buildGeneratedPost(request, generatedDescription, tempPhotoPath);
+    }
+
+
+    public GeneratedPostDTO streamWithTempPhoto(
+            PostRequestDTO request,
+            String tempPhotoPath,
+            Consumer<String> onToken) {
+
+        GeneratedDescription generatedDescription = openAIService.streamPostDescription(request, onToken);
+        log.info("Description streamed successfully");
+
+        return buildGeneratedPost(request, generatedDescription, tempPhotoPath);
+    }
+
+
+    private GeneratedPostDTO buildGeneratedPost(
+            PostRequestDTO request,
+            GeneratedDescription generatedDescription,
+            String tempPhotoPath) {
+
         String hashtags = formatHashtags(request.getHashtags());
 
         return GeneratedPostDTO.builder()
-                .generatedDescription(generatedDescription)
+                .generatedDescription(generatedDescription.text())
+                .fallback(generatedDescription.fallback())
                 .originalDescription(request.getDescription())
                 .hashtags(hashtags)
                 .tempPhotoPath(tempPhotoPath)
@@ -67,73 +144,62 @@ public class PostService {
     }
 
 
-    @Transactional
-    public PostResponseDTO saveGeneratedPost(SavePostRequestDTO request, String username) {
-        log.info("Saving generated post for user: {}", username);
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    public PostResponseDTO saveGeneratedPost(SavePostRequestDTO request, AuthenticatedUser user) {
+        log.info("Saving generated post for user: {}", user.username());
 
-        String photoPath = null;
+        Path tempPhoto = null;
         if (request.getTempPhotoPath() != null && !request.getTempPhotoPath().isEmpty()) {
-            try {
-                photoPath = moveTempPhotoToPermanent(request.getTempPhotoPath());
-                log.info("Photo moved to permanent storage: {}", photoPath);
-            } catch (IOException e) {
-                log.error("Failed to move photo: {}", e.getMessage());
-                throw new RuntimeException("Failed to save photo: " + e.getMessage());
+            tempPhoto = resolveTempPhoto(request.getTempPhotoPath());
+            if (!Files.exists(tempPhoto)) {
+                log.error("Temp photo not found: {}", tempPhoto);
+                throw new RuntimeException("Failed to save photo: Temp photo not found: " + tempPhoto);
             }
         }
 
         Post post = Post.builder()
-                .userId(user.getId())
+                .userId(user.id())
                 .originalDescription(request.getOriginalDescription())
                 .generatedDescription(request.getGeneratedDescription())
                 .hashtags(request.getHashtags())
-                .photoPath(photoPath)
                 .size(request.getSize())
                 .build();
 
-        post = postRepository.save(post);
+        post = persistPost(post, tempPhoto);
+        deleteTempPhoto(tempPhoto);
         log.info("Post saved to database with ID: {}", post.getId());
 
         return mapToResponse(post);
     }
 
 
-    @Transactional
-    public PostResponseDTO generateAndSavePost(PostRequestDTO request, String username) {
-        log.info("Generating and saving post for user: {}", username);
-
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    public PostResponseDTO generateAndSavePost(PostRequestDTO request, AuthenticatedUser user) {
+        log.info("Generating and saving post for user: {}", user.username());
 
-        String photoPath = null;
-        if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
-            try {
-                photoPath = savePhoto(request.getPhoto());
-                log.info("Photo saved: {}", photoPath);
-            } catch (IOException e) {
-                log.error("Failed to save photo: {}", e.getMessage());
-                throw new RuntimeException("Failed to save photo: " + e.getMessage());
-            }
+        GeneratedDescription generatedDescription = openAIService.generatePostDescription(request);
+        if (generatedDescription.fallback()) {
+            throw new CircuitOpenException("OpenAI is unavailable, the post was not saved, please retry later",
+                    openAIService.getRetryAfterSeconds());
         }
-
-        String generatedDescription = openAIService.generatePostDescription(request);
         log.info("Description generated successfully");
 
+        String tempPhotoPath = storeTempPhoto(request);
+        Path tempPhoto = tempPhotoPath == null ? null : Paths.get(tempPhotoPath);
+
         String hashtags = formatHashtags(request.getHashtags());
 
         Post post = Post.builder()
-                .userId(user.getId())
+                .userId(user.id())
                 .originalDescription(request.getDescription())
-                .generatedDescription(generatedDescription)
+                .generatedDescription(generatedDescription.text())
                 .hashtags(hashtags)
-                .photoPath(photoPath)
                 .size(request.getSize().name())
                 .build();
 
-        post = postRepository.save(post);
+        try {
+            post = persistPost(post, tempPhoto);
+        } finally {
+            deleteTempPhoto(tempPhoto);
+        }
         log.info("Post saved to database with ID: {}", post.getId());
 
         return mapToResponse(post);
@@ -141,30 +207,74 @@ public class PostService {
 
 
     @Transactional(readOnly = true)
-    public List<PostResponseDTO> getUserPosts(String username) {
-        log.info("Fetching posts for user: {}", username);
+    public PostPageDTO<PostSummaryDTO> getUserPosts(AuthenticatedUser user, String cursor, Integer limit) {
+        log.info("Fetching posts for user: {}", user.username());
+
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        List<PostSummaryView> posts;
+        if (cursor == null || cursor.isBlank()) {
+            posts = postRepository.findFirstPage(user.id(), previewLength, fetchLimit);
+        } else {
+            PageCursor position = decodeCursor(cursor);
+            posts = postRepository.findPageAfter(
+                    user.id(), position.createdAt(), position.id(), previewLength, fetchLimit);
+        }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        log.info("Found {} posts for user: {}", Math.min(posts.size(), pageSize), user.username());
 
-        List<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+        return toPage(posts, pageSize);
+    }
 
-        log.info("Found {} posts for user: {}", posts.size(), username);
 
-        return posts.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PostPageDTO<PostSummaryDTO> getPostsByHashtag(
+            AuthenticatedUser user, String tag, String cursor, Integer limit) {
+        log.info("Fetching posts tagged #{} for user: {}", tag, user.username());
+
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        Limit fetchLimit = Limit.of(pageSize + 1);
+
+        Long hashtagId = hashtagService.findHashtagId(tag).orElse(null);
+        if (hashtagId == null) {
+            return toPage(List.of(), pageSize);
+        }
+
+        List<PostSummaryView> posts;
+        if (cursor == null || cursor.isBlank()) {
+            posts = postRepository.findFirstPageByHashtag(user.id(), hashtagId, previewLength, fetchLimit);
+        } else {
+            PageCursor position = decodeCursor(cursor);
+            posts = postRepository.findPageByHashtagAfter(
+                    user.id(), hashtagId, position.createdAt(), position.id(), previewLength, fetchLimit);
+        }
+
+        return toPage(posts, pageSize);
     }
 
 
-    @Transactional(readOnly = true)
-    public PostResponseDTO getPostById(Long postId, String username) {
-        log.info("Fetching post {} for user: {}", postId, username);
+    private PostPageDTO<PostSummaryDTO> toPage(List<PostSummaryView> posts, int pageSize) {
+        boolean hasMore = posts.size() > pageSize;
+        if (hasMore) {
+            posts = posts.subList(0, pageSize);
+        }
+
+        return PostPageDTO.<PostSummaryDTO>builder()
+                .items(posts.stream()
+                        .map(this::mapToSummary)
+                        .collect(Collectors.toList()))
+                .nextCursor(hasMore ? encodeCursor(posts.get(posts.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    @Transactional(readOnly = true)
+    public PostResponseDTO getPostById(Long postId, AuthenticatedUser user) {
+        log.info("Fetching post {} for user: {}", postId, user.username());
 
-        Post post = postRepository.findByIdAndUserId(postId, user.getId());
+        Post post = postRepository.findByIdAndUserId(postId, user.id());
 
         if (post == null) {
             throw new RuntimeException("Post not found or access denied");
@@ -174,23 +284,58 @@ public class PostService {
     }
 
 
-    @Transactional
-    public void deletePost(Long postId, String username) {
-        log.info("Deleting post {} for user: {}", postId, username);
+    public PostSearchResultDTO searchPosts(AuthenticatedUser user, String query, Integer limit) {
+        log.info("Searching posts for user: {}", user.username());
+
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query is required");
+        }
 
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        int resultSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        PostSearchIndex.SearchResult result = postSearchIndex.search(user.id(), query, resultSize);
 
-        Post post = postRepository.findByIdAndUserId(postId, user.getId());
+        Map<Long, PostSummaryView> summaries = new HashMap<>();
+        if (!result.hits().isEmpty()) {
+            List<Long> ids = result.hits().stream().map(PostSearchIndex.Hit::postId).toList();
+            postRepository.findSummariesByIds(user.id(), ids, previewLength)
+                    .forEach(summary -> summaries.put(summary.getId(), summary));
+        }
+
+        List<PostSearchHitDTO> items = result.hits().stream()
+                .filter(hit -> summaries.containsKey(hit.postId()))
+                .map(hit -> PostSearchHitDTO.builder()
+                        .score(hit.score())
+                        .post(mapToSummary(summaries.get(hit.postId())))
+                        .build())
+                .collect(Collectors.toList());
+
+        return PostSearchResultDTO.builder()
+                .query(query)
+                .total(result.total())
+                .items(items)
+                .build();
+    }
+
+
+    @Transactional
+    public void deletePost(Long postId, AuthenticatedUser user) {
+        log.info("Deleting post {} for user: {}", postId, user.username());
+
+        Post post = postRepository.findByIdAndUserId(postId, user.id());
 
         if (post == null) {
             throw new RuntimeException("Post not found or access denied");
         }
 
-        if (post.getPhotoPath() != null && !post.getPhotoPath().isEmpty()) {
+        if (post.getPhotoSha256() != null) {
+            if (photoStore.release(post.getPhotoSha256())) {
+                photoVariantService.deleteVariantsAfterCommit(post.getPhotoPath());
+            }
+        } else if (post.getPhotoPath() != null && !post.getPhotoPath().isEmpty()) {
             try {
                 Path photoPath = Paths.get(post.getPhotoPath());
                 Files.deleteIfExists(photoPath);
+                photoVariantService.deleteVariantsAfterCommit(post.getPhotoPath());
                 log.info("Photo deleted: {}", post.getPhotoPath());
             } catch (IOException e) {
                 log.warn("Failed to delete photo: {}", e.getMessage());
@@ -198,67 +343,78 @@ public class PostService {
         }
 
         postRepository.delete(post);
+        postStatsService.recordDeleted(post);
+        hashtagService.recordDeleted(post);
+        postSearchIndex.removeAfterCommit(post);
+        readYourWritesGuard.pinAfterCommit(post.getUserId());
         log.info("Post deleted successfully: {}", postId);
     }
 
 
-    private String saveTempPhoto(MultipartFile photo) throws IOException {
-        Path tempPath = Paths.get(tempUploadDirectory);
-
-        if (!Files.exists(tempPath)) {
-            Files.createDirectories(tempPath);
-            log.info("Created temp upload directory: {}", tempPath);
-        }
-
-        String originalFilename = photo.getOriginalFilename();
-        String extension = "";
-
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    private Post persistPost(Post post, Path photo) {
+        PhotoStore.PreparedPhoto prepared = photo == null ? null : photoStore.prepare(photo);
+
+        try {
+            return transactionTemplate.execute(status -> {
+                if (prepared != null) {
+                    PhotoStore.StoredPhoto stored = photoStore.acquire(prepared);
+                    post.setPhotoPath(stored.path());
+                    post.setPhotoSha256(stored.sha256());
+                }
+
+                Post saved = postRepository.save(post);
+                postStatsService.recordCreated(saved);
+                hashtagService.recordCreated(List.of(saved));
+                postSearchIndex.indexAfterCommit(saved);
+                readYourWritesGuard.pinAfterCommit(saved.getUserId());
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            photoStore.abandon(prepared);
+            throw e;
         }
-
-        String filename = "temp_" + UUID.randomUUID().toString() + extension;
-        Path filePath = tempPath.resolve(filename);
-
-        Files.copy(photo.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        log.info("Temp photo saved: filename={}, size={} bytes",
-                filename, photo.getSize());
-
-        return filePath.toString();
     }
 
 
-    private String moveTempPhotoToPermanent(String tempPhotoPath) throws IOException {
-        Path tempPath = Paths.get(tempPhotoPath);
+    private Path resolveTempPhoto(String tempPhotoPath) {
+        Path tempDirectory = Paths.get(tempUploadDirectory).toAbsolutePath().normalize();
 
-        if (!Files.exists(tempPath)) {
-            throw new IOException("Temp photo not found: " + tempPhotoPath);
+        Path tempPhoto;
+        try {
+            tempPhoto = Paths.get(tempPhotoPath).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            throw new RuntimeException("Invalid temp photo path");
         }
 
-        Path uploadPath = Paths.get(uploadDirectory);
-
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        if (!tempPhoto.startsWith(tempDirectory) || tempPhoto.equals(tempDirectory)
+                || photoStore.isContentAddressed(tempPhoto)) {
+            log.warn("Rejected temp photo path outside {}: {}", tempDirectory, tempPhotoPath);
+            throw new RuntimeException("Invalid temp photo path");
         }
 
-        String filename = tempPath.getFileName().toString().replace("temp_", "");
-        Path permanentPath = uploadPath.resolve(filename);
+        return tempPhoto;
+    }
 
-        Files.move(tempPath, permanentPath, StandardCopyOption.REPLACE_EXISTING);
 
-        log.info("Photo moved: {} -> {}", tempPath, permanentPath);
+    private void deleteTempPhoto(Path tempPhoto) {
+        if (tempPhoto == null || photoStore.isContentAddressed(tempPhoto)) {
+            return;
+        }
 
-        return permanentPath.toString();
+        try {
+            Files.deleteIfExists(tempPhoto);
+        } catch (IOException e) {
+            log.warn("Failed to remove temp photo {}: {}", tempPhoto, e.getMessage());
+        }
     }
 
 
-    private String savePhoto(MultipartFile photo) throws IOException {
-        Path uploadPath = Paths.get(uploadDirectory);
+    private String saveTempPhoto(MultipartFile photo) throws IOException {
+        Path tempPath = Paths.get(tempUploadDirectory);
 
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-            log.info("Created upload directory: {}", uploadPath);
+        if (!Files.exists(tempPath)) {
+            Files.createDirectories(tempPath);
+            log.info("Created temp upload directory: {}", tempPath);
         }
 
         String originalFilename = photo.getOriginalFilename();
@@ -268,12 +424,12 @@ public class PostService {
             extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
 
-        String filename = UUID.randomUUID().toString() + extension;
-        Path filePath = uploadPath.resolve(filename);
+        String filename = "temp_" + UUID.randomUUID().toString() + extension;
+        Path filePath = tempPath.resolve(filename);
 
         Files.copy(photo.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
 
-        log.info("Photo saved to disk: filename={}, size={} bytes",
+        log.info("Temp photo saved: filename={}, size={} bytes",
                 filename, photo.getSize());
 
         return filePath.toString();
@@ -291,6 +447,46 @@ public class PostService {
     }
 
 
+    private String encodeCursor(PostSummaryView post) {
+        String position = post.getCreatedAt() + "|" + post.getId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private PageCursor decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new PageCursor(
+                    LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+
+    private PostSummaryDTO mapToSummary(PostSummaryView post) {
+        String preview = post.getPreview();
+        boolean truncated = preview != null && preview.codePointCount(0, preview.length()) > previewLength;
+        if (truncated) {
+            preview = preview.substring(0, preview.offsetByCodePoints(0, previewLength));
+        }
+
+        return PostSummaryDTO.builder()
+                .id(post.getId())
+                .preview(preview)
+                .truncated(truncated)
+                .hashtags(post.getHashtags())
+                .photoPath(post.getPhotoPath())
+                .size(post.getSize())
+                .createdAt(post.getCreatedAt())
+                .build();
+    }
+
+
     private PostResponseDTO mapToResponse(Post post) {
         return PostResponseDTO.builder()
                 .id(post.getId())
@@ -302,4 +498,8 @@ public class PostService {
                 .createdAt(post.getCreatedAt())
                 .build();
     }
-}
\ No newline at end of file
+
+
+    private record PageCursor(LocalDateTime createdAt, Long id) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.config.ReadYourWritesGuard;
+import com.github.yakupovdev.cms.dto.UserStatsDTO;
+import com.github.yakupovdev.cms.entity.Post;
+import com.github.yakupovdev.cms.entity.UserPostStats;
+import com.github.yakupovdev.cms.repository.UserPostStatsRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PostStatsService {
+
+    private final UserPostStatsRepository userPostStatsRepository;
+    private final EntityManager entityManager;
+    private final ReadYourWritesGuard readYourWritesGuard;
+
+
+    @Transactional
+    public void recordCreated(Post post) {
+        if (incrementCreated(post) > 0) {
+            return;
+        }
+
+        entityManager.flush();
+        if (userPostStatsRepository.initializeUser(post.getUserId()) > 0) {
+            log.info("Post stats for user {} built from existing posts", post.getUserId());
+            return;
+        }
+
+        incrementCreated(post);
+    }
+
+
+    @Transactional
+    public void recordDeleted(Post post) {
+        int updated = userPostStatsRepository.recordPostDeleted(
+                post.getUserId(),
+                post.getId(),
+                flag("SHORT".equals(post.getSize())),
+                flag("MEDIUM".equals(post.getSize())),
+                flag("LONG".equals(post.getSize())),
+                flag(hasPhoto(post))
+        );
+
+        if (updated == 0) {
+            entityManager.flush();
+            userPostStatsRepository.reconcileUser(post.getUserId());
+        }
+    }
+
+
+    @Transactional
+    public void rebuild(Long userId) {
+        userPostStatsRepository.reconcileUser(userId);
+    }
+
+
+    @Transactional(readOnly = true)
+    public Optional<UserStatsDTO> getStats(Long userId) {
+        return userPostStatsRepository.findById(userId).map(this::toDto);
+    }
+
+
+    @Transactional
+    public UserStatsDTO buildStats(Long userId) {
+        log.info("No post stats for user {}, building them from posts", userId);
+        userPostStatsRepository.reconcileUser(userId);
+        readYourWritesGuard.pinAfterCommit(userId);
+
+        UserPostStats stats = userPostStatsRepository.findById(userId)
+                .orElseGet(() -> UserPostStats.builder().userId(userId).build());
+        return toDto(stats);
+    }
+
+
+    private UserStatsDTO toDto(UserPostStats stats) {
+        return UserStatsDTO.builder()
+                .totalPosts(stats.getTotalPosts())
+                .shortPosts(stats.getShortPosts())
+                .mediumPosts(stats.getMediumPosts())
+                .longPosts(stats.getLongPosts())
+                .photoPosts(stats.getPhotoPosts())
+                .textOnlyPosts(stats.getTextOnlyPosts())
+                .lastPostAt(stats.getLastPostAt())
+                .build();
+    }
+
+
+    @Scheduled(cron = "${stats.reconcile.cron:0 30 3 * * *}")
+    @Transactional
+    public void reconcile() {
+        long startedAt = System.currentTimeMillis();
+
+        int repaired = userPostStatsRepository.reconcileAll();
+        int reset = userPostStatsRepository.resetUsersWithoutPosts();
+
+        if (repaired + reset > 0) {
+            log.warn("Post stats reconciliation repaired {} users and reset {} users in {} ms",
+                    repaired, reset, System.currentTimeMillis() - startedAt);
+        } else {
+            log.info("Post stats reconciliation found no drift ({} ms)",
+                    System.currentTimeMillis() - startedAt);
+        }
+    }
+
+
+    private int incrementCreated(Post post) {
+        return userPostStatsRepository.recordPostCreated(
+                post.getUserId(),
+                flag("SHORT".equals(post.getSize())),
+                flag("MEDIUM".equals(post.getSize())),
+                flag("LONG".equals(post.getSize())),
+                flag(hasPhoto(post)),
+                post.getCreatedAt()
+        );
+    }
+
+
+    private boolean hasPhoto(Post post) {
+        return post.getPhotoPath() != null && !post.getPhotoPath().isEmpty();
+    }
+
+
+    private int flag(boolean value) {
+        return value ? 1 : 0;
+    }
+}
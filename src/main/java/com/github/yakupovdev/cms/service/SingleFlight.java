@@ -0,0 +1,75 @@
+package com.github.yakupovdev.cms.service;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Callable<CompletableFuture<V>> call, Duration timeout) throws Exception {
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, promise);
+
+        if (existing != null) {
+            return await(existing, timeout);
+        }
+
+        try {
+            call.call().whenComplete((value, error) -> {
+                inFlight.remove(key, promise);
+                if (error != null) {
+                    promise.completeExceptionally(unwrap(error));
+                } else {
+                    promise.complete(value);
+                }
+            });
+        } catch (Exception e) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+        }
+
+        return await(promise, timeout);
+    }
+
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+
+    public int size() {
+        return inFlight.size();
+    }
+
+
+    private V await(CompletableFuture<V> future, Duration timeout) throws Exception {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e.getCause());
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Timed out after " + timeout.toSeconds() +
+                    "s waiting for in-flight request");
+        }
+    }
+
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
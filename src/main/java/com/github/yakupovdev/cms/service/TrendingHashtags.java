@@ -0,0 +1,149 @@
+package com.github.yakupovdev.cms.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+@Component
+public class TrendingHashtags {
+
+    private static final double MAX_EXPONENT = 100;
+    private static final Comparator<Counter> BY_COUNT = Comparator
+            .comparingDouble((Counter counter) -> counter.count)
+            .thenComparing(counter -> counter.tag);
+
+    public record Entry(String tag, double score, double maxError) {
+    }
+
+    private final int capacity;
+    private final double decayPerSecond;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final NavigableSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private long landmark;
+
+    public TrendingHashtags(
+            @Value("${hashtags.trending.capacity:1000}") int capacity,
+            @Value("${hashtags.trending.half-life:7d}") Duration halfLife) {
+        this.capacity = capacity;
+        this.decayPerSecond = Math.log(2) / halfLife.toSeconds();
+        this.landmark = Instant.now().getEpochSecond();
+    }
+
+
+    public synchronized void add(Collection<String> tags, LocalDateTime createdAt) {
+        double weight = weight(createdAt);
+        for (String tag : tags) {
+            Counter counter = counters.get(tag);
+            if (counter != null) {
+                update(counter, counter.count + weight);
+            } else if (counters.size() < capacity) {
+                insert(new Counter(tag, weight, 0));
+            } else {
+                Counter smallest = byCount.pollFirst();
+                counters.remove(smallest.tag);
+                insert(new Counter(tag, smallest.count + weight, smallest.count));
+            }
+        }
+    }
+
+
+    public synchronized void remove(Collection<String> tags, LocalDateTime createdAt) {
+        double weight = weight(createdAt);
+        for (String tag : tags) {
+            Counter counter = counters.get(tag);
+            if (counter != null) {
+                update(counter, Math.max(0, counter.count - weight));
+            }
+        }
+    }
+
+
+    public synchronized List<Entry> top(int limit) {
+        double scale = Math.exp(-decayPerSecond * (Instant.now().getEpochSecond() - landmark));
+
+        return counters.values().stream()
+                .filter(counter -> counter.count > 0)
+                .sorted(Comparator.comparingDouble((Counter counter) -> counter.count)
+                        .reversed()
+                        .thenComparing(counter -> counter.tag))
+                .limit(limit)
+                .map(counter -> new Entry(counter.tag, counter.count * scale, counter.error * scale))
+                .toList();
+    }
+
+
+    public synchronized void clear() {
+        counters.clear();
+        byCount.clear();
+        landmark = Instant.now().getEpochSecond();
+    }
+
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+
+    private double weight(LocalDateTime createdAt) {
+        long now = Instant.now().getEpochSecond();
+        long at = createdAt == null
+                ? now
+                : Math.min(now, createdAt.atZone(ZoneId.systemDefault()).toEpochSecond());
+
+        if (decayPerSecond * (at - landmark) > MAX_EXPONENT) {
+            rebase(now);
+        }
+
+        return Math.exp(decayPerSecond * (at - landmark));
+    }
+
+
+    private void rebase(long newLandmark) {
+        double scale = Math.exp(-decayPerSecond * (newLandmark - landmark));
+        for (Counter counter : counters.values()) {
+            counter.count *= scale;
+            counter.error *= scale;
+        }
+        byCount.clear();
+        byCount.addAll(counters.values());
+        landmark = newLandmark;
+    }
+
+
+    private void insert(Counter counter) {
+        counters.put(counter.tag, counter);
+        byCount.add(counter);
+    }
+
+
+    private void update(Counter counter, double count) {
+        byCount.remove(counter);
+        counter.count = count;
+        byCount.add(counter);
+    }
+
+
+    private static final class Counter {
+
+        private final String tag;
+        private double count;
+        private double error;
+
+        private Counter(String tag, double count, double error) {
+            this.tag = tag;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -1,28 +1,37 @@
 package com.github.yakupovdev.cms.service;
 
+import com.github.yakupovdev.cms.config.ReadYourWritesGuard;
 import com.github.yakupovdev.cms.dto.AuthResponseDTO;
+import com.github.yakupovdev.cms.dto.HashtagCountDTO;
 import com.github.yakupovdev.cms.dto.LoginRequestDTO;
 import com.github.yakupovdev.cms.dto.RegisterRequestDTO;
 import com.github.yakupovdev.cms.dto.UserInfoResponseDTO;
+import com.github.yakupovdev.cms.dto.UserStatsDTO;
 import com.github.yakupovdev.cms.entity.User;
-import com.github.yakupovdev.cms.repository.PostRepository;
 import com.github.yakupovdev.cms.repository.UserRepository;
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
 import com.github.yakupovdev.cms.security.JwtUtil;
+import com.github.yakupovdev.cms.security.TokenRevocationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PostRepository postRepository;
+    private final PostStatsService postStatsService;
+    private final HashtagService hashtagService;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
+    private final ReadYourWritesGuard readYourWritesGuard;
 
     @Transactional
     public AuthResponseDTO register(RegisterRequestDTO request) {
@@ -38,10 +47,11 @@ public class UserService {
                 .password(passwordEncoder.encode(request.getPassword()))
                 .build();
 
-        userRepository.save(user);
+        user = userRepository.save(user);
+        readYourWritesGuard.pinAfterCommit(user.getId());
         log.info("User registered successfully: {}", user.getUsername());
 
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername());
 
         return AuthResponseDTO.builder()
                 .token(token)
@@ -64,7 +74,7 @@ public class UserService {
             throw new RuntimeException("Invalid username or password");
         }
 
-        String token = jwtUtil.generateToken(user.getUsername());
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername());
 
         log.info("User logged in successfully: {}", user.getUsername());
 
@@ -75,13 +85,13 @@ public class UserService {
                 .build();
     }
 
-    public UserInfoResponseDTO getUserInfo(String username) {
-        log.info("Fetching user info for: {}", username);
+    public UserInfoResponseDTO getUserInfo(AuthenticatedUser authenticatedUser) {
+        log.info("Fetching user info for: {}", authenticatedUser.username());
 
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findById(authenticatedUser.id())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        long totalPosts = postRepository.countByUserId(user.getId());
+        long totalPosts = statsFor(user.getId()).getTotalPosts();
 
         return UserInfoResponseDTO.builder()
                 .id(user.getId())
@@ -90,4 +100,27 @@ public class UserService {
                 .totalPosts(totalPosts)
                 .build();
     }
-}
\ No newline at end of file
+
+    public void revokeTokens(AuthenticatedUser authenticatedUser) {
+        log.info("Revoking all tokens for user: {}", authenticatedUser.username());
+
+        tokenRevocationRegistry.revoke(authenticatedUser.id());
+    }
+
+    public UserStatsDTO getUserStats(AuthenticatedUser authenticatedUser) {
+        log.info("Fetching post stats for: {}", authenticatedUser.username());
+
+        return statsFor(authenticatedUser.id());
+    }
+
+    public List<HashtagCountDTO> getTopHashtags(AuthenticatedUser authenticatedUser, Integer limit) {
+        log.info("Fetching top hashtags for: {}", authenticatedUser.username());
+
+        return hashtagService.getTopForUser(authenticatedUser.id(), limit);
+    }
+
+    private UserStatsDTO statsFor(Long userId) {
+        return postStatsService.getStats(userId)
+                .orElseGet(() -> postStatsService.buildStats(userId));
+    }
+}
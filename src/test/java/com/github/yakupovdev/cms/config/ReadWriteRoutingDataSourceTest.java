@@ -0,0 +1,148 @@
+package com.github.yakupovdev.cms.config;
+
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private ReadYourWritesGuard readYourWritesGuard;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+
+        readYourWritesGuard = new ReadYourWritesGuard(Duration.ofMinutes(1), 1000);
+        ReadWriteRoutingDataSource router = new ReadWriteRoutingDataSource(
+                primary, replica, readYourWritesGuard, new SimpleMeterRegistry());
+        router.afterPropertiesSet();
+        DataSource routing = new LazyConnectionDataSourceProxy(router);
+
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Test
+    void readOnlyTransactionsUseTheReplica() {
+        assertEquals("replica", readOnly.execute(status -> currentNode()));
+    }
+
+
+    @Test
+    void readWriteTransactionsUseThePrimary() {
+        assertEquals("primary", readWrite.execute(status -> currentNode()));
+    }
+
+
+    @Test
+    void userIsPinnedToThePrimaryAfterCommittingAWrite() {
+        authenticate(7L);
+
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("insert into notes(body) values ('hello')");
+            readYourWritesGuard.pinAfterCommit(7L);
+        });
+
+        assertTrue(readYourWritesGuard.isPinned(7L));
+        assertEquals(List.of("hello"), readOnly.execute(status -> notes()));
+
+        authenticate(8L);
+        assertEquals(List.of(), readOnly.execute(status -> notes()));
+    }
+
+
+    @Test
+    void rolledBackWriteDoesNotPin() {
+        authenticate(7L);
+
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("insert into notes(body) values ('hello')");
+            readYourWritesGuard.pinAfterCommit(7L);
+            status.setRollbackOnly();
+        });
+
+        assertFalse(readYourWritesGuard.isPinned(7L));
+        assertEquals("replica", readOnly.execute(status -> currentNode()));
+    }
+
+
+    @Test
+    void readWriteTransactionWithoutAWriteDoesNotPin() {
+        authenticate(7L);
+
+        assertEquals("primary", readWrite.execute(status -> currentNode()));
+
+        assertFalse(readYourWritesGuard.isPinned(7L));
+        assertEquals("replica", readOnly.execute(status -> currentNode()));
+    }
+
+
+    @Test
+    void explicitPinCoversAnonymousWrites() {
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("insert into notes(body) values ('registered')");
+            readYourWritesGuard.pinAfterCommit(9L);
+        });
+
+        authenticate(9L);
+        assertEquals(List.of("registered"), readOnly.execute(status -> notes()));
+    }
+
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+
+    private List<String> notes() {
+        return jdbcTemplate.queryForList("select body from notes", String.class);
+    }
+
+
+    private void authenticate(Long userId) {
+        AuthenticatedUser user = new AuthenticatedUser(userId, "user" + userId);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+
+    private DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("create table node(name varchar(20))");
+        setup.update("insert into node(name) values (?)", name);
+        setup.execute("create table notes(body varchar(100))");
+        return dataSource;
+    }
+}
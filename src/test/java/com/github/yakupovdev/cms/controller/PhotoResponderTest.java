@@ -0,0 +1,96 @@
+package com.github.yakupovdev.cms.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoResponderTest {
+
+    @TempDir
+    Path directory;
+
+    private PhotoResponder photoResponder;
+    private Path photo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        photoResponder = new PhotoResponder(DataSize.ofKilobytes(48), Duration.ofDays(365), 100);
+        byte[] content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        photo = Files.write(directory.resolve("photo.jpg"), content);
+    }
+
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        String etag = etag();
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        ResponseEntity<?> response = respond(request);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+
+    @Test
+    void rangeIsServedAsPartialContent() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+        ResponseEntity<?> response = respond(request);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 100-199/1000", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        byte[] body = (byte[]) response.getBody();
+        assertEquals(100, body.length);
+        assertEquals((byte) 100, body[0]);
+    }
+
+
+    @Test
+    void failedIfMatchIsPreconditionFailed() throws Exception {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_MATCH, "\"something-else\"");
+        ResponseEntity<?> response = respond(request);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertNull(response.getBody());
+
+        MockHttpServletRequest matching = get();
+        matching.addHeader(HttpHeaders.IF_MATCH, etag());
+        assertEquals(HttpStatus.OK, respond(matching).getStatusCode());
+    }
+
+
+    private String etag() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        photoResponder.respond(photo, false, new ServletWebRequest(get(), response));
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+
+    private ResponseEntity<?> respond(MockHttpServletRequest request) throws Exception {
+        return photoResponder.respond(photo, false, new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+
+
+    private MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/posts/1/photo");
+    }
+}
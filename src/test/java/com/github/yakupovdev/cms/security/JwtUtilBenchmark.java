@@ -0,0 +1,75 @@
+package com.github.yakupovdev.cms.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "content-management-system-jwt-secret-key-very-secure-and-long-minimum-256-bits";
+    private static final String USERNAME = "benchmark-user";
+
+    private JwtUtil jwtUtil;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(new SimpleMeterRegistry(), SECRET, 86_400_000L, 10_000);
+        parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build();
+        token = jwtUtil.generateToken(42L, USERNAME);
+        jwtUtil.parseToken(token);
+    }
+
+
+    @Benchmark
+    public boolean perRequestParsing() {
+        String username = parseWithFreshKey(token).getSubject();
+        return parseWithFreshKey(token).getSubject().equals(username)
+                && !parseWithFreshKey(token).getExpiration().before(new Date());
+    }
+
+
+    @Benchmark
+    public Claims sharedParserUncached() {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+
+    @Benchmark
+    public Claims cachedClaims() {
+        return jwtUtil.parseToken(token);
+    }
+
+
+    private Claims parseWithFreshKey(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.yakupovdev.cms.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.yakupovdev.cms.service.ChatCompletionCodec.ChatCompletionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class ChatCompletionCodecBenchmark {
+
+    private static final String SYSTEM_MESSAGE = "You are a professional Instagram copywriter and social media expert.";
+    private static final String PROMPT = "Create an Instagram post description based on the provided image.";
+
+    @Param({"1048576", "10485760"})
+    private int imageBytes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChatCompletionCodec codec = new ChatCompletionCodec(objectMapper);
+
+    private byte[] image;
+    private ChatCompletionRequest request;
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        image = new byte[imageBytes];
+        new Random(42).nextBytes(image);
+
+        request = new ChatCompletionRequest("gpt-4o", 0.85, 0.95, 0.3, 0.3, 500, false,
+                SYSTEM_MESSAGE, PROMPT, new ByteArrayResource(image), "image/jpeg", "auto");
+
+        String content = "Golden hour by the sea \\uD83C\\uDF05 ".repeat(40);
+        response = ("{\"id\":\"chatcmpl-1\",\"object\":\"chat.completion\",\"model\":\"gpt-4o\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + content + "\"},"
+                + "\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":850,\"completion_tokens\":420,\"total_tokens\":1270}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    @Benchmark
+    public void writeRequestStreaming() throws IOException {
+        codec.writeRequest(request, OutputStream.nullOutputStream());
+    }
+
+
+    @Benchmark
+    public void writeRequestTree() throws IOException {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("model", request.model());
+        root.put("temperature", request.temperature());
+        root.put("max_tokens", request.maxTokens());
+        root.put("top_p", request.topP());
+        root.put("frequency_penalty", request.frequencyPenalty());
+        root.put("presence_penalty", request.presencePenalty());
+
+        ArrayNode messages = root.putArray("messages");
+        messages.addObject()
+                .put("role", "system")
+                .put("content", request.systemMessage());
+
+        ObjectNode userMessage = messages.addObject().put("role", "user");
+        ArrayNode content = userMessage.putArray("content");
+        content.addObject()
+                .put("type", "text")
+                .put("text", request.prompt());
+        content.addObject()
+                .put("type", "image_url")
+                .putObject("image_url")
+                .put("url", "data:" + request.imageMimeType() + ";base64,"
+                        + Base64.getEncoder().encodeToString(request.image().getInputStream().readAllBytes()));
+
+        OutputStream.nullOutputStream().write(root.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    @Benchmark
+    public String readResponseStreaming() throws IOException {
+        return codec.readMessageContent(new ByteArrayInputStream(response));
+    }
+
+
+    @Benchmark
+    public String readResponseTree() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(response, StandardCharsets.UTF_8));
+        return root.path("choices").get(0).path("message").path("content").asText().trim();
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.yakupovdev.cms.service;
+
+import com.github.yakupovdev.cms.config.ReadYourWritesGuard;
+import com.github.yakupovdev.cms.dto.PostRequestDTO;
+import com.github.yakupovdev.cms.dto.PostResponseDTO;
+import com.github.yakupovdev.cms.entity.Post;
+import com.github.yakupovdev.cms.repository.PhotoBlobRepository;
+import com.github.yakupovdev.cms.repository.PostRepository;
+import com.github.yakupovdev.cms.security.AuthenticatedUser;
+import com.github.yakupovdev.cms.service.OpenAIService.GeneratedDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PostServiceConcurrencyTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int IN_FLIGHT_GENERATIONS = 20;
+
+    @TempDir
+    Path uploadDirectory;
+
+    private OpenAIService openAIService;
+    private PostRepository postRepository;
+    private PhotoBlobRepository photoBlobRepository;
+    private PostStatsService postStatsService;
+    private BoundedTransactionManager transactionManager;
+    private PostService postService;
+
+    @BeforeEach
+    void setUp() {
+        openAIService = mock(OpenAIService.class);
+        postRepository = mock(PostRepository.class);
+        postStatsService = mock(PostStatsService.class);
+        photoBlobRepository = mock(PhotoBlobRepository.class);
+        transactionManager = new BoundedTransactionManager(POOL_SIZE);
+
+        AtomicLong ids = new AtomicLong();
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> {
+            Post post = invocation.getArgument(0);
+            post.setId(ids.incrementAndGet());
+            return post;
+        });
+
+        postService = new PostService(
+                openAIService, postRepository, postStatsService, mock(PostSearchIndex.class), mock(HashtagService.class),
+                new PhotoStore(photoBlobRepository, transactionManager, uploadDirectory.toString(), 500),
+                mock(PhotoVariantService.class),
+                new TransactionTemplate(transactionManager), new ReadYourWritesGuard(Duration.ofSeconds(5), 1000));
+        ReflectionTestUtils.setField(postService, "tempUploadDirectory", uploadDirectory.resolve("temp").toString());
+    }
+
+
+    @Test
+    void readsStayResponsiveWhileGenerationsAreInFlight() throws Exception {
+        CountDownLatch upstreamCalls = new CountDownLatch(IN_FLIGHT_GENERATIONS);
+        CountDownLatch releaseUpstream = new CountDownLatch(1);
+        when(openAIService.generatePostDescription(any())).thenAnswer(invocation -> {
+            upstreamCalls.countDown();
+            releaseUpstream.await();
+            return new GeneratedDescription("generated", false);
+        });
+
+        ExecutorService callers = Executors.newFixedThreadPool(IN_FLIGHT_GENERATIONS);
+        try {
+            List<Future<PostResponseDTO>> generations = new ArrayList<>();
+            for (int i = 0; i < IN_FLIGHT_GENERATIONS; i++) {
+                AuthenticatedUser user = new AuthenticatedUser((long) i, "user" + i);
+                generations.add(callers.submit(() -> postService.generateAndSavePost(request(), user)));
+            }
+
+            assertTrue(upstreamCalls.await(5, TimeUnit.SECONDS), "all generations should reach OpenAI");
+            assertEquals(0, transactionManager.active.get(), "no transaction may be open during the OpenAI call");
+
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            for (int i = 0; i < 50; i++) {
+                long startedAt = System.nanoTime();
+                readOnly.executeWithoutResult(status -> {
+                });
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 500,
+                        "read should not wait for a connection");
+            }
+
+            releaseUpstream.countDown();
+            for (Future<PostResponseDTO> generation : generations) {
+                assertEquals("generated", generation.get(5, TimeUnit.SECONDS).getGeneratedDescription());
+            }
+        } finally {
+            releaseUpstream.countDown();
+            callers.shutdownNow();
+        }
+
+        assertTrue(transactionManager.maxActive.get() <= POOL_SIZE);
+        verify(postRepository, times(IN_FLIGHT_GENERATIONS)).save(any(Post.class));
+        verify(postStatsService, times(IN_FLIGHT_GENERATIONS)).recordCreated(any(Post.class));
+    }
+
+
+    @Test
+    void savedPhotoIsRemovedWhenTheWriteFails() throws Exception {
+        Map<String, String> blobs = new ConcurrentHashMap<>();
+        when(photoBlobRepository.acquire(anyString(), anyString(), anyLong())).thenAnswer(invocation -> {
+            String sha256 = invocation.getArgument(0);
+            blobs.putIfAbsent(sha256, invocation.getArgument(1));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        blobs.remove(sha256);
+                    }
+                }
+            });
+            return 1;
+        });
+        when(photoBlobRepository.findPathBySha256(anyString()))
+                .thenAnswer(invocation -> blobs.get(invocation.<String>getArgument(0)));
+
+        when(openAIService.generatePostDescription(any())).thenReturn(new GeneratedDescription("generated", false));
+        when(postRepository.save(any(Post.class))).thenThrow(new RuntimeException("database down"));
+
+        PostRequestDTO request = request();
+        request.setPhoto(new MockMultipartFile("photo", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3}));
+
+        assertThrows(RuntimeException.class,
+                () -> postService.generateAndSavePost(request, new AuthenticatedUser(1L, "user")));
+
+        verify(photoBlobRepository).acquire(anyString(), anyString(), anyLong());
+        try (var files = Files.walk(uploadDirectory)) {
+            assertEquals(List.of(), files.filter(Files::isRegularFile).toList(),
+                    "neither the blob nor the temp photo may survive a failed insert");
+        }
+    }
+
+
+    @Test
+    void failedGenerationLeavesNoPhotoBehind() throws Exception {
+        when(openAIService.generatePostDescription(any())).thenThrow(new RuntimeException("upstream down"));
+
+        PostRequestDTO request = request();
+        request.setPhoto(new MockMultipartFile("photo", "photo.jpg", "image/jpeg", new byte[]{1, 2, 3}));
+
+        assertThrows(RuntimeException.class,
+                () -> postService.generateAndSavePost(request, new AuthenticatedUser(1L, "user")));
+
+        try (var files = Files.list(uploadDirectory)) {
+            assertEquals(0, files.count());
+        }
+        assertEquals(0, transactionManager.begun.get());
+    }
+
+
+    private PostRequestDTO request() {
+        PostRequestDTO request = new PostRequestDTO();
+        request.setDescription("Sunset at the beach");
+        request.setHashtags(List.of("sunset"));
+        request.setSize(PostRequestDTO.DescriptionSize.SHORT);
+        return request;
+    }
+
+
+    private static class BoundedTransactionManager extends AbstractPlatformTransactionManager {
+
+        private final Semaphore connections;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger maxActive = new AtomicInteger();
+        private final AtomicInteger begun = new AtomicInteger();
+
+        BoundedTransactionManager(int poolSize) {
+            this.connections = new Semaphore(poolSize);
+        }
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            try {
+                if (!connections.tryAcquire(1, TimeUnit.SECONDS)) {
+                    throw new CannotCreateTransactionException("Connection pool exhausted");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotCreateTransactionException("Interrupted", e);
+            }
+            begun.incrementAndGet();
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doCleanupAfterCompletion(Object transaction) {
+            active.decrementAndGet();
+            connections.release();
+        }
+    }
+}